@@ -0,0 +1,38 @@
+package edu.gju.chatbot.catalog;
+
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One ingested file in the document catalog: its type, year and the
+ * document-level attributes shared by all of its chunks.
+ */
+public record CatalogEntry(
+    String fileName,
+    String fileId,
+    String fileHash,
+    String documentType,
+    Integer year,
+    Map<String, Object> attributes
+) {
+    /**
+     * Builds the entry for a file from the metadata of any of its chunks.
+     */
+    public static CatalogEntry of(Map<String, Object> chunkMetadata) {
+        Map<String, Object> attributes = new HashMap<>(chunkMetadata);
+        attributes.keySet().removeAll(MetadataKeys.CHUNK_KEYS);
+
+        return new CatalogEntry(
+            Objects.toString(attributes.get(MetadataKeys.FILE_NAME), null),
+            Objects.toString(attributes.get(MetadataKeys.FILE_ID), null),
+            Objects.toString(attributes.get(MetadataKeys.FILE_HASH), null),
+            Objects.toString(attributes.get(MetadataKeys.DOCUMENT_TYPE), null),
+            attributes.get(MetadataKeys.YEAR) instanceof Number year
+                ? year.intValue()
+                : null,
+            attributes
+        );
+    }
+}
@@ -0,0 +1,155 @@
+package edu.gju.chatbot.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.exception.RagException;
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * One row per ingested file, kept in step with {@code vector_store} by the
+ * writers, so questions about which documents exist are answered from a
+ * handful of rows instead of every chunk.
+ */
+@RequiredArgsConstructor
+@Repository
+public class DocumentCatalogRepository {
+
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES =
+        new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Adds or replaces the entry for a file. Writers call this in the
+     * transaction that writes the file's chunks.
+     */
+    public void save(CatalogEntry entry) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO document (file_name, file_id, file_hash, document_type, year, attributes)
+            VALUES (?, ?, ?, ?, ?, ?::jsonb)
+            ON CONFLICT (file_name) DO UPDATE SET
+                file_id = EXCLUDED.file_id,
+                file_hash = EXCLUDED.file_hash,
+                document_type = EXCLUDED.document_type,
+                year = EXCLUDED.year,
+                attributes = EXCLUDED.attributes,
+                ingested_at = now()
+            """,
+            toRow(entry)
+        );
+    }
+
+    /**
+     * Replaces the whole catalog, for loads that replace the whole store.
+     */
+    public void replaceAll(Collection<CatalogEntry> entries) {
+        jdbcTemplate.update("DELETE FROM document");
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO document (file_name, file_id, file_hash, document_type, year, attributes)
+            VALUES (?, ?, ?, ?, ?, ?::jsonb)
+            ON CONFLICT (file_name) DO NOTHING
+            """,
+            entries.stream().map(this::toRow).toList()
+        );
+    }
+
+    /**
+     * Fills an empty catalog from the chunks already in {@code vector_store},
+     * for stores ingested before the catalog existed.
+     */
+    public int backfill() {
+        return jdbcTemplate.update(
+            """
+            INSERT INTO document (file_name, file_id, file_hash, document_type, year, attributes)
+            SELECT DISTINCT ON (metadata ->> 'file_name')
+                metadata ->> 'file_name',
+                file_id,
+                metadata ->> 'file_hash',
+                document_type,
+                year,
+                metadata - ?::text[]
+            FROM vector_store
+            WHERE metadata ->> 'file_name' IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM document)
+            ORDER BY metadata ->> 'file_name'
+            ON CONFLICT (file_name) DO NOTHING
+            """,
+            ps ->
+                ps.setArray(
+                    1,
+                    ps
+                        .getConnection()
+                        .createArrayOf(
+                            "text",
+                            MetadataKeys.CHUNK_KEYS.toArray()
+                        )
+                )
+        );
+    }
+
+    public boolean containsFileHash(String fileHash) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM document WHERE file_hash = ?)",
+                Boolean.class,
+                fileHash
+            )
+        );
+    }
+
+    public List<CatalogEntry> findAll() {
+        return jdbcTemplate.query(
+            """
+            SELECT file_name, file_id, file_hash, document_type, year, attributes
+            FROM document
+            """,
+            (rs, _) ->
+                new CatalogEntry(
+                    rs.getString("file_name"),
+                    rs.getString("file_id"),
+                    rs.getString("file_hash"),
+                    rs.getString("document_type"),
+                    rs.getObject("year", Integer.class),
+                    parseAttributes(rs.getString("attributes"))
+                )
+        );
+    }
+
+    private Object[] toRow(CatalogEntry entry) {
+        return new Object[] {
+            entry.fileName(),
+            entry.fileId(),
+            entry.fileHash(),
+            entry.documentType(),
+            entry.year(),
+            toJson(entry.attributes()),
+        };
+    }
+
+    private Map<String, Object> parseAttributes(String attributes) {
+        try {
+            return objectMapper.readValue(attributes, ATTRIBUTES);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to parse document attributes.", e);
+        }
+    }
+
+    private String toJson(Map<String, Object> map) {
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to serialize document attributes.", e);
+        }
+    }
+}
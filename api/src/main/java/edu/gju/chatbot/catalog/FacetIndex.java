@@ -0,0 +1,177 @@
+package edu.gju.chatbot.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory copy of the document catalog, answering which documents of a
+ * type have a given combination of attribute values without a database round
+ * trip. For every document type each attribute value maps to the set of
+ * documents carrying it, so a combination is the intersection of those sets.
+ * <p>
+ * The index is an immutable snapshot replaced atomically. It is loaded on
+ * first use, updated in place by the writers of this instance once their
+ * transaction commits, and reloaded periodically to pick up files ingested
+ * by other instances.
+ */
+@RequiredArgsConstructor
+@Component
+public class FacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetIndex.class);
+
+    private final DocumentCatalogRepository documentCatalogRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Returns the attributes of every document of {@code documentType} whose
+     * attributes include all of {@code filters}. The returned maps are shared
+     * and unmodifiable.
+     */
+    public List<Map<String, Object>> findAttributes(
+        String documentType,
+        Map<String, Object> filters
+    ) {
+        Facets facets = current().byType().get(documentType);
+
+        return facets == null ? List.of() : facets.find(filters);
+    }
+
+    @Scheduled(
+        fixedDelayString = "${catalog.facet-index.refresh-interval:PT1M}",
+        initialDelayString = "${catalog.facet-index.refresh-interval:PT1M}"
+    )
+    public void refresh() {
+        replaceAll(documentCatalogRepository.findAll());
+    }
+
+    public void put(CatalogEntry entry) {
+        snapshot.updateAndGet(s ->
+            s == null ? null : s.with(entry)
+        );
+    }
+
+    public void replaceAll(Collection<CatalogEntry> entries) {
+        snapshot.set(Snapshot.of(entries));
+        log.debug("Facet index holds {} documents.", entries.size());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+
+        if (current != null) {
+            return current;
+        }
+
+        refresh();
+        return snapshot.get();
+    }
+
+    /**
+     * Values are compared as in JSON, so an integer attribute matches
+     * regardless of the Java type it was parsed or passed as.
+     */
+    private static Object normalize(Object value) {
+        return switch (value) {
+            case Integer i -> i.longValue();
+            case Short s -> s.longValue();
+            case Byte b -> b.longValue();
+            case null, default -> value;
+        };
+    }
+
+    private record Snapshot(
+        Map<String, CatalogEntry> entries,
+        Map<String, Facets> byType
+    ) {
+        static Snapshot of(Collection<CatalogEntry> entries) {
+            Map<String, CatalogEntry> byFileName = new LinkedHashMap<>();
+            entries.forEach(e -> byFileName.put(e.fileName(), e));
+
+            Map<String, Facets> byType = byFileName
+                .values()
+                .stream()
+                .filter(e -> e.documentType() != null)
+                .collect(
+                    Collectors.groupingBy(
+                        CatalogEntry::documentType,
+                        Collectors.collectingAndThen(
+                            Collectors.toList(),
+                            Facets::of
+                        )
+                    )
+                );
+
+            return new Snapshot(
+                Collections.unmodifiableMap(byFileName),
+                Map.copyOf(byType)
+            );
+        }
+
+        Snapshot with(CatalogEntry entry) {
+            Map<String, CatalogEntry> updated = new LinkedHashMap<>(entries);
+            updated.put(entry.fileName(), entry);
+            return of(updated.values());
+        }
+    }
+
+    private record Facets(
+        List<Map<String, Object>> documents,
+        Map<String, Map<Object, BitSet>> postings
+    ) {
+        static Facets of(List<CatalogEntry> entries) {
+            List<Map<String, Object>> documents = new ArrayList<>();
+            Map<String, Map<Object, BitSet>> postings = new HashMap<>();
+
+            for (CatalogEntry entry : entries) {
+                int document = documents.size();
+                documents.add(Collections.unmodifiableMap(entry.attributes()));
+
+                entry
+                    .attributes()
+                    .forEach((key, value) ->
+                        postings
+                            .computeIfAbsent(key, _ -> new HashMap<>())
+                            .computeIfAbsent(normalize(value), _ -> new BitSet())
+                            .set(document)
+                    );
+            }
+
+            return new Facets(List.copyOf(documents), postings);
+        }
+
+        List<Map<String, Object>> find(Map<String, Object> filters) {
+            BitSet matches = new BitSet(documents.size());
+            matches.set(0, documents.size());
+
+            for (Map.Entry<String, Object> filter : filters.entrySet()) {
+                Map<Object, BitSet> values = postings.get(filter.getKey());
+                BitSet carrying = values == null
+                    ? null
+                    : values.get(normalize(filter.getValue()));
+
+                if (carrying == null) {
+                    return List.of();
+                }
+
+                matches.and(carrying);
+            }
+
+            return matches.stream().mapToObj(documents::get).toList();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.gju.chatbot.advisor.ChatMemoryAdvisor;
 import edu.gju.chatbot.advisor.RagAdvisor;
 import edu.gju.chatbot.metadata.DocumentTypeRegistry;
+import edu.gju.chatbot.retrieval.CourseLookup;
 import edu.gju.chatbot.retrieval.DocumentSearchService;
 import edu.gju.chatbot.retrieval.DocumentSearchTool;
 import edu.gju.chatbot.retrieval.DocumentSearchToolInputConverter;
@@ -34,6 +35,7 @@ public class ChatClientConfig {
       Converter<String, UserQuery> documentSearchToolInputConverter,
       SearchDecisionChain searchDecisionChain,
       DocumentSearchService searchService,
+      CourseLookup courseLookup,
       ChatMemory chatMemory) {
     return ChatClient.builder(chatModel)
         .defaultToolCallbacks(
@@ -41,6 +43,7 @@ public class ChatClientConfig {
                 documentTypeRegistry,
                 searchDecisionChain,
                 searchService,
+                courseLookup,
                 documentSearchToolInputConverter))
         .defaultAdvisors(new RagAdvisor(), ChatMemoryAdvisor.builder(chatMemory).build())
         .build();
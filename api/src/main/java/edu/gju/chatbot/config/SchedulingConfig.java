@@ -0,0 +1,11 @@
+package edu.gju.chatbot.config;
+
+import edu.gju.chatbot.config.etl.DirectoryImportProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnExpression(DirectoryImportProperties.NOT_IMPORTING)
+public class SchedulingConfig {}
@@ -23,6 +23,10 @@ public class SecurityConfig {
         .authorizeHttpRequests(
             request ->
                 request
+                    // Re-embedding rewrites the whole store; matched before the
+                    // catch-all below so it keeps requiring credentials.
+                    .requestMatchers("/vector-store/**")
+                    .authenticated()
                     .requestMatchers("/error", "/actuator/health", "/**", "/chat/**")
                     .permitAll()
                     .anyRequest()
@@ -0,0 +1,41 @@
+package edu.gju.chatbot.config.etl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.etl.DirectoryImportRunner;
+import edu.gju.chatbot.etl.EtlPipelineService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ DirectoryImportProperties.class })
+public class DirectoryImportConfig {
+
+    @Bean
+    @ConditionalOnProperty(
+        prefix = DirectoryImportProperties.CONFIG_PREFIX,
+        name = "directory"
+    )
+    public DirectoryImportRunner directoryImportRunner(
+        EtlPipelineService etlPipelineService,
+        ObjectMapper objectMapper,
+        ConfigurableApplicationContext applicationContext,
+        DirectoryImportProperties properties
+    ) {
+        return new DirectoryImportRunner(
+            etlPipelineService,
+            objectMapper,
+            applicationContext,
+            properties.getDirectory(),
+            properties.getMode(),
+            properties.getParallelism(),
+            properties.getManifest() != null
+                ? properties.getManifest()
+                : properties
+                    .getDirectory()
+                    .resolve(DirectoryImportProperties.DEFAULT_MANIFEST_NAME)
+        );
+    }
+}
@@ -0,0 +1,48 @@
+package edu.gju.chatbot.config.etl;
+
+import edu.gju.chatbot.etl.DirectoryImportRunner;
+import java.nio.file.Path;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(DirectoryImportProperties.CONFIG_PREFIX)
+public class DirectoryImportProperties {
+
+    public static final String CONFIG_PREFIX = "etl.import";
+
+    /**
+     * Matches unless an import is configured. A process that imports and
+     * exits must not claim shared ingestion jobs or run other background
+     * work it would kill mid-flight on exit.
+     */
+    public static final String NOT_IMPORTING =
+        "'${" + CONFIG_PREFIX + ".directory:}'.isEmpty()";
+
+    public static final DirectoryImportRunner.Mode DEFAULT_MODE =
+        DirectoryImportRunner.Mode.INGEST;
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public static final String DEFAULT_MANIFEST_NAME = "ingestion-manifest.json";
+
+    /**
+     * Directory whose PDFs are imported; the import runs only when it is set.
+     */
+    private Path directory;
+
+    /**
+     * Whether the files are added to the vector store or replace it.
+     */
+    private DirectoryImportRunner.Mode mode = DEFAULT_MODE;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Where the results manifest is written, by default inside the imported
+     * directory.
+     */
+    private Path manifest;
+}
@@ -1,86 +1,310 @@
 package edu.gju.chatbot.config.etl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.knuddels.jtokkit.api.EncodingType;
+import edu.gju.chatbot.catalog.DocumentCatalogRepository;
+import edu.gju.chatbot.catalog.FacetIndex;
+import edu.gju.chatbot.course.CourseRepository;
+import edu.gju.chatbot.etl.ActiveEmbeddingModel;
+import edu.gju.chatbot.etl.ChunkTokenCountBatchingStrategy;
+import edu.gju.chatbot.etl.CourseTableExtractor;
+import edu.gju.chatbot.etl.EmbeddingDispatcher;
+import edu.gju.chatbot.etl.EmbeddingRateLimiter;
 import edu.gju.chatbot.etl.FileMetadataEnricher;
+import edu.gju.chatbot.etl.IngestionCheckpointRepository;
+import edu.gju.chatbot.etl.IngestionStage;
 import edu.gju.chatbot.etl.MarkdownHierarchyEnricher;
 import edu.gju.chatbot.etl.MarkdownTextSplitter;
+import edu.gju.chatbot.etl.MinHasher;
+import edu.gju.chatbot.etl.NearDuplicateDetector;
+import edu.gju.chatbot.etl.ReEmbeddingJobRepository;
+import edu.gju.chatbot.etl.StageExecutors;
+import edu.gju.chatbot.etl.TokenChunker;
+import edu.gju.chatbot.etl.VectorStoreBulkLoader;
+import edu.gju.chatbot.etl.VectorStoreReEmbedder;
+import edu.gju.chatbot.etl.VectorStoreWriter;
 import edu.gju.chatbot.metadata.DocumentTypeRegistry;
 import edu.gju.chatbot.metadata.MetadataKeys;
+import edu.gju.chatbot.section.SectionCache;
+import edu.gju.chatbot.section.SectionRepository;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.ContentFormatter;
 import org.springframework.ai.document.DefaultContentFormatter;
-import org.springframework.ai.document.MetadataMode;
-import org.springframework.ai.embedding.BatchingStrategy;
-import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.ai.transformer.splitter.TextSplitter;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
+@EnableConfigurationProperties({ EtlPipelineProperties.class })
 public class EtlPipelineConfig {
 
+    @Bean
+    public StageExecutors stageExecutors(EtlPipelineProperties properties) {
+        Map<IngestionStage, StageExecutors.StageLimits> limits = new EnumMap<>(
+            IngestionStage.class
+        );
+
+        properties
+            .getStages()
+            .forEach((stage, stageProperties) ->
+                limits.put(
+                    stage,
+                    new StageExecutors.StageLimits(
+                        stageProperties.getWorkers(),
+                        stageProperties.getQueueCapacity()
+                    )
+                )
+            );
+
+        return new StageExecutors(limits);
+    }
+
     @Bean
     public MarkdownHierarchyEnricher markdownHierarchyEnricher(
-        OpenAiChatModel chatModel
+        OpenAiChatModel chatModel,
+        EtlPipelineProperties properties
     ) {
         ChatClient chatClient = ChatClient.builder(chatModel).build();
+        EtlPipelineProperties.Hierarchy hierarchy = properties.getHierarchy();
 
-        return new MarkdownHierarchyEnricher(chatClient);
+        return new MarkdownHierarchyEnricher(
+            chatClient,
+            hierarchy.getMode(),
+            hierarchy.getSnippetLength(),
+            hierarchy.getWindowSize(),
+            hierarchy.getWindowOverlap()
+        );
     }
 
     @Bean
-    @ConditionalOnMissingBean(TextSplitter.class)
-    public TextSplitter textSplitter() {
-        return new TokenTextSplitter(128, 64, 10, 5000, true);
+    public TokenChunker tokenChunker() {
+        return new TokenChunker(EncodingType.CL100K_BASE, 128, 64, 10, 5000);
     }
 
     @Bean
     public MarkdownTextSplitter markdownHeaderTextSplitter(
-        TextSplitter textSplitter
+        TokenChunker tokenChunker
     ) {
-        return new MarkdownTextSplitter(textSplitter);
+        return new MarkdownTextSplitter(tokenChunker);
     }
 
     @Bean
     public FileMetadataEnricher fileMetadataEnricher(
         OpenAiChatModel chatModel,
-        DocumentTypeRegistry documentTypeRegistry
+        DocumentTypeRegistry documentTypeRegistry,
+        EtlPipelineProperties properties
     ) {
         ChatClient chatClient = ChatClient.builder(chatModel).build();
 
-        return new FileMetadataEnricher(chatClient, documentTypeRegistry);
+        return new FileMetadataEnricher(
+            chatClient,
+            documentTypeRegistry,
+            new JTokkitTokenCountEstimator(EncodingType.CL100K_BASE),
+            properties.getMetadata().getExcerptTokenBudget()
+        );
     }
 
     @Bean
-    public BatchingStrategy tokenCountBatchingStrategy() {
-        return new TokenCountBatchingStrategy(
-            EncodingType.CL100K_BASE,
-            8191,
-            0.10,
-            DefaultContentFormatter.builder()
-                .withExcludedEmbedMetadataKeys(
-                    List.of(
-                        MetadataKeys.FILE_ID,
-                        MetadataKeys.FILE_NAME,
-                        MetadataKeys.FILE_SIZE,
-                        MetadataKeys.TITLE,
-                        MetadataKeys.BREADCRUMBS,
-                        MetadataKeys.SECTION_ID,
-                        MetadataKeys.CHUNK_INDEX,
-                        MetadataKeys.DOCUMENT_TYPE,
-                        MetadataKeys.ACADEMIC_LEVEL,
-                        MetadataKeys.DEPARTMENT,
-                        MetadataKeys.PROGRAM,
-                        MetadataKeys.YEAR,
-                        "total_chunks",
-                        "parent_document_id"
-                    )
+    public ContentFormatter embedContentFormatter() {
+        return DefaultContentFormatter.builder()
+            .withExcludedEmbedMetadataKeys(
+                List.of(
+                    MetadataKeys.FILE_ID,
+                    MetadataKeys.FILE_NAME,
+                    MetadataKeys.FILE_SIZE,
+                    MetadataKeys.FILE_HASH,
+                    MetadataKeys.TITLE,
+                    MetadataKeys.BREADCRUMBS,
+                    MetadataKeys.SECTION_ID,
+                    MetadataKeys.CHUNK_INDEX,
+                    MetadataKeys.CONTENT_HASH,
+                    MetadataKeys.TOKEN_COUNT,
+                    MetadataKeys.LSH_BANDS,
+                    MetadataKeys.CANONICAL_ID,
+                    MetadataKeys.DOCUMENT_TYPE,
+                    MetadataKeys.ACADEMIC_LEVEL,
+                    MetadataKeys.DEPARTMENT,
+                    MetadataKeys.PROGRAM,
+                    MetadataKeys.YEAR,
+                    "total_chunks",
+                    "parent_document_id"
                 )
-                .build(),
-            MetadataMode.EMBED
+            )
+            .build();
+    }
+
+    @Bean
+    public ChunkTokenCountBatchingStrategy tokenCountBatchingStrategy(
+        ContentFormatter embedContentFormatter
+    ) {
+        return new ChunkTokenCountBatchingStrategy(
+            new JTokkitTokenCountEstimator(EncodingType.CL100K_BASE),
+            embedContentFormatter,
+            8191,
+            0.10
+        );
+    }
+
+    @Bean
+    public EmbeddingDispatcher embeddingDispatcher(
+        EmbeddingModel embeddingModel,
+        ChunkTokenCountBatchingStrategy tokenCountBatchingStrategy,
+        ContentFormatter embedContentFormatter,
+        EtlPipelineProperties properties
+    ) {
+        EtlPipelineProperties.Embedding embedding = properties.getEmbedding();
+
+        return new EmbeddingDispatcher(
+            embeddingModel,
+            tokenCountBatchingStrategy,
+            embedContentFormatter,
+            new EmbeddingRateLimiter(
+                embedding.getRequestsPerMinute(),
+                embedding.getTokensPerMinute()
+            ),
+            embedding.getMaxConcurrentRequests(),
+            embedding.getMaxRetries(),
+            embedding.getDefaultRetryAfter()
+        );
+    }
+
+    @Bean
+    public CourseTableExtractor courseTableExtractor(
+        EtlPipelineProperties properties
+    ) {
+        return new CourseTableExtractor(
+            properties.getCourses().getDocumentType()
+        );
+    }
+
+    @Bean
+    public NearDuplicateDetector nearDuplicateDetector(
+        JdbcTemplate jdbcTemplate,
+        EtlPipelineProperties properties
+    ) {
+        EtlPipelineProperties.Deduplication deduplication =
+            properties.getDeduplication();
+
+        return new NearDuplicateDetector(
+            jdbcTemplate,
+            new MinHasher(
+                deduplication.getBands(),
+                deduplication.getRowsPerBand(),
+                deduplication.getShingleSize()
+            ),
+            deduplication.getSimilarityThreshold(),
+            deduplication.getMinWords(),
+            deduplication.isEnabled()
+        );
+    }
+
+    @Bean
+    public ActiveEmbeddingModel activeEmbeddingModel(
+        JdbcTemplate jdbcTemplate,
+        @Value("${spring.ai.openai.embedding.options.model}") String model,
+        @Value("${spring.ai.openai.embedding.options.dimensions}") int dimensions
+    ) {
+        return new ActiveEmbeddingModel(
+            jdbcTemplate,
+            new ActiveEmbeddingModel.Spec(model, dimensions)
+        );
+    }
+
+    @Bean
+    public VectorStoreReEmbedder vectorStoreReEmbedder(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        EmbeddingDispatcher embeddingDispatcher,
+        ActiveEmbeddingModel activeEmbeddingModel,
+        ReEmbeddingJobRepository reEmbeddingJobRepository,
+        ObjectMapper objectMapper,
+        EtlPipelineProperties properties
+    ) {
+        EtlPipelineProperties.ReEmbedding reEmbedding =
+            properties.getReEmbedding();
+
+        return new VectorStoreReEmbedder(
+            jdbcTemplate,
+            transactionTemplate,
+            embeddingDispatcher,
+            activeEmbeddingModel,
+            reEmbeddingJobRepository,
+            objectMapper,
+            reEmbedding.getBatchSize(),
+            reEmbedding.getBatchDelay(),
+            reEmbedding.getMaxCatchUpPasses()
+        );
+    }
+
+    @Bean
+    public VectorStoreWriter vectorStoreWriter(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        EmbeddingDispatcher embeddingDispatcher,
+        ActiveEmbeddingModel activeEmbeddingModel,
+        IngestionCheckpointRepository checkpointRepository,
+        NearDuplicateDetector nearDuplicateDetector,
+        DocumentCatalogRepository documentCatalogRepository,
+        FacetIndex facetIndex,
+        SectionRepository sectionRepository,
+        SectionCache sectionCache,
+        CourseRepository courseRepository,
+        ContentFormatter embedContentFormatter,
+        ObjectMapper objectMapper
+    ) {
+        return new VectorStoreWriter(
+            jdbcTemplate,
+            transactionTemplate,
+            embeddingDispatcher,
+            activeEmbeddingModel,
+            checkpointRepository,
+            nearDuplicateDetector,
+            documentCatalogRepository,
+            facetIndex,
+            sectionRepository,
+            sectionCache,
+            courseRepository,
+            embedContentFormatter,
+            objectMapper
+        );
+    }
+
+    @Bean
+    public VectorStoreBulkLoader vectorStoreBulkLoader(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        VectorStoreWriter vectorStoreWriter,
+        NearDuplicateDetector nearDuplicateDetector,
+        DocumentCatalogRepository documentCatalogRepository,
+        FacetIndex facetIndex,
+        SectionRepository sectionRepository,
+        SectionCache sectionCache,
+        CourseRepository courseRepository,
+        EtlPipelineProperties properties
+    ) {
+        EtlPipelineProperties.BulkLoad bulkLoad = properties.getBulkLoad();
+
+        return new VectorStoreBulkLoader(
+            jdbcTemplate,
+            transactionTemplate,
+            vectorStoreWriter,
+            nearDuplicateDetector,
+            documentCatalogRepository,
+            facetIndex,
+            sectionRepository,
+            sectionCache,
+            courseRepository,
+            bulkLoad.getMaintenanceWorkMem(),
+            bulkLoad.getMaxParallelMaintenanceWorkers()
         );
     }
 }
@@ -0,0 +1,172 @@
+package edu.gju.chatbot.config.etl;
+
+import edu.gju.chatbot.etl.IngestionStage;
+import edu.gju.chatbot.etl.MarkdownHierarchyEnricher;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(EtlPipelineProperties.CONFIG_PREFIX)
+public class EtlPipelineProperties {
+
+    public static final String CONFIG_PREFIX = "etl.pipeline";
+
+    private Map<IngestionStage, Stage> stages = new EnumMap<>(
+        IngestionStage.class
+    );
+
+    private BulkLoad bulkLoad = new BulkLoad();
+
+    private Embedding embedding = new Embedding();
+
+    private Hierarchy hierarchy = new Hierarchy();
+
+    private Metadata metadata = new Metadata();
+
+    private Deduplication deduplication = new Deduplication();
+
+    private Courses courses = new Courses();
+
+    private ReEmbedding reEmbedding = new ReEmbedding();
+
+    @Getter
+    @Setter
+    public static class Stage {
+
+        public static final int DEFAULT_WORKERS = 2;
+
+        public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+        private int workers = DEFAULT_WORKERS;
+
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkLoad {
+
+        public static final DataSize DEFAULT_MAINTENANCE_WORK_MEM =
+            DataSize.ofGigabytes(1);
+
+        public static final int DEFAULT_MAX_PARALLEL_MAINTENANCE_WORKERS = 2;
+
+        private DataSize maintenanceWorkMem = DEFAULT_MAINTENANCE_WORK_MEM;
+
+        private int maxParallelMaintenanceWorkers =
+            DEFAULT_MAX_PARALLEL_MAINTENANCE_WORKERS;
+    }
+
+    @Getter
+    @Setter
+    public static class Embedding {
+
+        public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+        public static final int DEFAULT_REQUESTS_PER_MINUTE = 3000;
+
+        public static final int DEFAULT_TOKENS_PER_MINUTE = 1_000_000;
+
+        public static final int DEFAULT_MAX_RETRIES = 5;
+
+        public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(10);
+
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+        private int requestsPerMinute = DEFAULT_REQUESTS_PER_MINUTE;
+
+        private int tokensPerMinute = DEFAULT_TOKENS_PER_MINUTE;
+
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+
+        private Duration defaultRetryAfter = DEFAULT_RETRY_AFTER;
+    }
+
+    @Getter
+    @Setter
+    public static class Hierarchy {
+
+        public static final int DEFAULT_SNIPPET_LENGTH = 160;
+
+        public static final int DEFAULT_WINDOW_SIZE = 150;
+
+        public static final int DEFAULT_WINDOW_OVERLAP = 20;
+
+        private MarkdownHierarchyEnricher.Mode mode =
+            MarkdownHierarchyEnricher.Mode.SKELETON;
+
+        private int snippetLength = DEFAULT_SNIPPET_LENGTH;
+
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+
+        private int windowOverlap = DEFAULT_WINDOW_OVERLAP;
+    }
+
+    @Getter
+    @Setter
+    public static class Metadata {
+
+        public static final int DEFAULT_EXCERPT_TOKEN_BUDGET = 4000;
+
+        private int excerptTokenBudget = DEFAULT_EXCERPT_TOKEN_BUDGET;
+    }
+
+    @Getter
+    @Setter
+    public static class Deduplication {
+
+        public static final double DEFAULT_SIMILARITY_THRESHOLD = 0.9;
+
+        public static final int DEFAULT_MIN_WORDS = 40;
+
+        public static final int DEFAULT_BANDS = 32;
+
+        public static final int DEFAULT_ROWS_PER_BAND = 4;
+
+        public static final int DEFAULT_SHINGLE_SIZE = 5;
+
+        private boolean enabled = true;
+
+        private double similarityThreshold = DEFAULT_SIMILARITY_THRESHOLD;
+
+        private int minWords = DEFAULT_MIN_WORDS;
+
+        private int bands = DEFAULT_BANDS;
+
+        private int rowsPerBand = DEFAULT_ROWS_PER_BAND;
+
+        private int shingleSize = DEFAULT_SHINGLE_SIZE;
+    }
+
+    @Getter
+    @Setter
+    public static class Courses {
+
+        public static final String DEFAULT_DOCUMENT_TYPE = "study_plan";
+
+        private String documentType = DEFAULT_DOCUMENT_TYPE;
+    }
+
+    @Getter
+    @Setter
+    public static class ReEmbedding {
+
+        public static final int DEFAULT_BATCH_SIZE = 256;
+
+        public static final Duration DEFAULT_BATCH_DELAY = Duration.ofMillis(500);
+
+        public static final int DEFAULT_MAX_CATCH_UP_PASSES = 5;
+
+        private int batchSize = DEFAULT_BATCH_SIZE;
+
+        private Duration batchDelay = DEFAULT_BATCH_DELAY;
+
+        private int maxCatchUpPasses = DEFAULT_MAX_CATCH_UP_PASSES;
+    }
+}
@@ -0,0 +1,8 @@
+package edu.gju.chatbot.config.etl;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ IngestionJobProperties.class })
+public class IngestionJobConfig {}
@@ -0,0 +1,26 @@
+package edu.gju.chatbot.config.etl;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(IngestionJobProperties.CONFIG_PREFIX)
+public class IngestionJobProperties {
+
+    public static final String CONFIG_PREFIX = "etl.ingestion-jobs";
+
+    public static final int DEFAULT_WORKERS = 8;
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofMinutes(15);
+
+    private int workers = DEFAULT_WORKERS;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private Duration leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+}
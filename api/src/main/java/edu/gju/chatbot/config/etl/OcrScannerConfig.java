@@ -1,10 +1,24 @@
 package edu.gju.chatbot.config.etl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.etl.JdbcOcrResultCache;
+import edu.gju.chatbot.etl.MarkdownExtractor;
+import edu.gju.chatbot.etl.OcrCircuitBreaker;
+import edu.gju.chatbot.etl.OcrClient;
+import edu.gju.chatbot.etl.OcrResultCache;
 import edu.gju.chatbot.etl.OcrScanner;
+import edu.gju.chatbot.etl.PdfTextLayerExtractor;
+import edu.gju.chatbot.exception.ScannerUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.http.HttpClient;
+import java.util.List;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
 @Configuration
@@ -12,15 +26,113 @@ import org.springframework.web.client.RestClient;
 public class OcrScannerConfig {
 
     @Bean
-    public OcrScanner ocrScanner(
+    public OcrResultCache ocrResultCache(
+        OcrScannerProperties properties,
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry
+    ) {
+        OcrScannerProperties.Cache cache = properties.getCache();
+
+        if (!cache.isEnabled()) {
+            return OcrResultCache.NOOP;
+        }
+
+        return new JdbcOcrResultCache(
+            jdbcTemplate,
+            cache.getMaxSize().toBytes(),
+            meterRegistry
+        );
+    }
+
+    @Bean
+    public MarkdownExtractor textLayerExtractor(OcrScannerProperties properties) {
+        OcrScannerProperties.TextLayer textLayer = properties.getTextLayer();
+
+        if (!textLayer.isEnabled()) {
+            return MarkdownExtractor.NONE;
+        }
+
+        return new PdfTextLayerExtractor(
+            textLayer.getMinCharsPerPage(),
+            textLayer.getMinTextPageRatio()
+        );
+    }
+
+    @Bean
+    public OcrClient ocrClient(
         OcrScannerProperties properties,
         RestClient.Builder restClientBuilder,
-        RetryTemplate retryTemplate
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry
     ) {
+        OcrScannerProperties.Client client = properties.getClient();
+        OcrScannerProperties.Retry retry = client.getRetry();
+        OcrScannerProperties.CircuitBreaker circuitBreaker =
+            client.getCircuitBreaker();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(client.getConnectTimeout())
+            .build();
+
+        // The JDK client streams the multipart body from the spooled file
+        // instead of buffering the whole PDF before sending it.
         RestClient restClient = restClientBuilder
             .baseUrl(properties.getBaseUrl() + properties.getScannerPath())
+            .requestFactory(new JdkClientHttpRequestFactory(httpClient))
             .build();
 
-        return new OcrScanner(restClient, retryTemplate);
+        // Rejected requests and an open breaker will not get better by
+        // retrying; jitter keeps retries from shards of one file in lockstep.
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+            .maxAttempts(retry.getMaxAttempts())
+            .exponentialBackoff(
+                retry.getInitialBackoff(),
+                retry.getMultiplier(),
+                retry.getMaxBackoff(),
+                true
+            )
+            .notRetryOn(
+                List.of(
+                    HttpClientErrorException.class,
+                    ScannerUnavailableException.class
+                )
+            )
+            .build();
+
+        return new OcrClient(
+            restClient,
+            httpClient,
+            retryTemplate,
+            objectMapper,
+            new OcrCircuitBreaker(
+                circuitBreaker.getFailureThreshold(),
+                circuitBreaker.getOpenDuration()
+            ),
+            meterRegistry,
+            client.getMaxInFlight(),
+            client.getBaseReadTimeout(),
+            client.getReadTimeoutPerMegabyte(),
+            client.getMaxReadTimeout()
+        );
+    }
+
+    @Bean
+    public OcrScanner ocrScanner(
+        OcrScannerProperties properties,
+        OcrClient ocrClient,
+        OcrResultCache ocrResultCache,
+        MarkdownExtractor textLayerExtractor,
+        MeterRegistry meterRegistry
+    ) {
+        OcrScannerProperties.Streaming streaming = properties.getStreaming();
+
+        return new OcrScanner(
+            ocrClient,
+            ocrResultCache,
+            textLayerExtractor,
+            meterRegistry,
+            properties.getSharding().getPagesPerShard(),
+            streaming.isEnabled() ? streaming.getPagesPerPart() : 0
+        );
     }
 }
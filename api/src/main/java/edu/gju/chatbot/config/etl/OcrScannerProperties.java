@@ -1,8 +1,10 @@
 package edu.gju.chatbot.config.etl;
 
+import java.time.Duration;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @Getter
 @Setter
@@ -18,4 +20,133 @@ public class OcrScannerProperties {
     private String baseUrl = DEFAULT_BASE_URL;
 
     private String scannerPath = DEFAULT_SCANNER_PATH;
+
+    private Cache cache = new Cache();
+
+    private Sharding sharding = new Sharding();
+
+    private TextLayer textLayer = new TextLayer();
+
+    private Client client = new Client();
+
+    private Streaming streaming = new Streaming();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        public static final DataSize DEFAULT_MAX_SIZE = DataSize.ofGigabytes(2);
+
+        private boolean enabled = true;
+
+        private DataSize maxSize = DEFAULT_MAX_SIZE;
+    }
+
+    @Getter
+    @Setter
+    public static class Sharding {
+
+        public static final int DEFAULT_PAGES_PER_SHARD = 20;
+
+        private int pagesPerShard = DEFAULT_PAGES_PER_SHARD;
+    }
+
+    @Getter
+    @Setter
+    public static class TextLayer {
+
+        public static final int DEFAULT_MIN_CHARS_PER_PAGE = 200;
+
+        public static final double DEFAULT_MIN_TEXT_PAGE_RATIO = 0.9;
+
+        private boolean enabled = true;
+
+        private int minCharsPerPage = DEFAULT_MIN_CHARS_PER_PAGE;
+
+        private double minTextPageRatio = DEFAULT_MIN_TEXT_PAGE_RATIO;
+    }
+
+    @Getter
+    @Setter
+    public static class Client {
+
+        public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+        public static final Duration DEFAULT_CONNECT_TIMEOUT =
+            Duration.ofSeconds(5);
+
+        public static final Duration DEFAULT_BASE_READ_TIMEOUT =
+            Duration.ofMinutes(1);
+
+        public static final Duration DEFAULT_READ_TIMEOUT_PER_MEGABYTE =
+            Duration.ofSeconds(30);
+
+        public static final Duration DEFAULT_MAX_READ_TIMEOUT =
+            Duration.ofMinutes(30);
+
+        /**
+         * Caps the scan requests in flight across all files, so sharding a
+         * large document does not overwhelm the OCR service.
+         */
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+        private Duration baseReadTimeout = DEFAULT_BASE_READ_TIMEOUT;
+
+        private Duration readTimeoutPerMegabyte =
+            DEFAULT_READ_TIMEOUT_PER_MEGABYTE;
+
+        private Duration maxReadTimeout = DEFAULT_MAX_READ_TIMEOUT;
+
+        private Retry retry = new Retry();
+
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    }
+
+    @Getter
+    @Setter
+    public static class Retry {
+
+        public static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+        public static final Duration DEFAULT_INITIAL_BACKOFF =
+            Duration.ofSeconds(2);
+
+        public static final double DEFAULT_MULTIPLIER = 2;
+
+        public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(1);
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+        private double multiplier = DEFAULT_MULTIPLIER;
+
+        private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+        public static final Duration DEFAULT_OPEN_DURATION = Duration.ofMinutes(1);
+
+        private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+        private Duration openDuration = DEFAULT_OPEN_DURATION;
+    }
+
+    @Getter
+    @Setter
+    public static class Streaming {
+
+        public static final int DEFAULT_PAGES_PER_PART = 5;
+
+        private boolean enabled = true;
+
+        private int pagesPerPart = DEFAULT_PAGES_PER_PART;
+    }
 }
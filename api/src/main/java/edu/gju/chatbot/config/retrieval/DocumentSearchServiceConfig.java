@@ -1,23 +1,51 @@
 package edu.gju.chatbot.config.retrieval;
 
 import org.springframework.ai.document.DocumentTransformer;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStoreRetriever;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import edu.gju.chatbot.config.etl.EtlPipelineProperties;
+import edu.gju.chatbot.course.CourseRepository;
+import edu.gju.chatbot.etl.ActiveEmbeddingModel;
+import edu.gju.chatbot.retrieval.CanonicalChunkRetriever;
+import edu.gju.chatbot.retrieval.CourseLookup;
 import edu.gju.chatbot.retrieval.DocumentContextExpander;
 import edu.gju.chatbot.retrieval.DocumentSearchService;
+import edu.gju.chatbot.section.SectionCache;
+import edu.gju.chatbot.section.SectionRepository;
 
 @Configuration
 public class DocumentSearchServiceConfig {
 
   @Bean
-  public DocumentSearchService documentSearchService(VectorStoreRetriever retriever,
-      DocumentTransformer documentContextExpander, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
-    DocumentTransformer documentTransformer = new DocumentContextExpander(jdbcTemplate, objectMapper);
+  public DocumentSearchService documentSearchService(EmbeddingModel embeddingModel,
+      ActiveEmbeddingModel activeEmbeddingModel, DocumentTransformer documentContextExpander,
+      JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, SectionRepository sectionRepository,
+      SectionCache sectionCache, @Value("${retrieval.canonical-search.overfetch-factor}") int overfetchFactor) {
+    VectorStoreRetriever retriever = new CanonicalChunkRetriever(
+        jdbcTemplate, embeddingModel, activeEmbeddingModel, objectMapper, overfetchFactor);
+    DocumentTransformer documentTransformer = new DocumentContextExpander(sectionRepository, sectionCache);
     return new DocumentSearchService(retriever, documentTransformer);
   }
+
+  @Bean
+  public SectionCache sectionCache(
+      @Value("${section.cache.max-entries}") int maxEntries,
+      @Value("${section.cache.max-characters}") long maxCharacters,
+      MeterRegistry meterRegistry) {
+    return new SectionCache(maxEntries, maxCharacters, meterRegistry);
+  }
+
+  @Bean
+  public CourseLookup courseLookup(CourseRepository courseRepository, EtlPipelineProperties etlPipelineProperties) {
+    return new CourseLookup(courseRepository, etlPipelineProperties.getCourses().getDocumentType());
+  }
 }
@@ -4,10 +4,8 @@ import java.util.List;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.core.JdbcTemplate;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import edu.gju.chatbot.catalog.FacetIndex;
 import edu.gju.chatbot.metadata.DocumentTypeRegistry;
 import edu.gju.chatbot.retrieval.DocumentTypeHandler;
 import edu.gju.chatbot.retrieval.AttributesHandler;
@@ -26,9 +24,8 @@ public class SearchDecisionChainConfig {
 
   @Bean
   public AttributesHandler attributesHandler(
-      JdbcTemplate jdbcTemplate,
-      ObjectMapper objectMapper) {
-    return new AttributesHandler(jdbcTemplate, objectMapper);
+      FacetIndex facetIndex) {
+    return new AttributesHandler(facetIndex);
   }
 
   @Bean
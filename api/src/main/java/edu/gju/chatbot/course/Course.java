@@ -0,0 +1,21 @@
+package edu.gju.chatbot.course;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * One row of a study plan's course tables. Codes are stored normalized, so
+ * "CS 116", "cs116" and "CS-116" all refer to the same course.
+ */
+public record Course(
+    String code,
+    String title,
+    Integer creditHours,
+    String category
+) {
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-]+");
+
+    public static String normalizeCode(String code) {
+        return SEPARATORS.matcher(code).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,135 @@
+package edu.gju.chatbot.course;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The courses of every ingested study plan, keyed by program, study plan year
+ * and course code, for lookups that do not need a vector search.
+ */
+@RequiredArgsConstructor
+@Repository
+public class CourseRepository {
+
+    private static final RowMapper<Course> COURSE = (rs, _) ->
+        new Course(
+            rs.getString("code"),
+            rs.getString("title"),
+            rs.getObject("credit_hours", Integer.class),
+            rs.getString("category")
+        );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Replaces the courses previously extracted from {@code fileName} with
+     * those of {@code courseTable}, or removes them if it is {@code null}.
+     * A course already listed by another file for the same program and year
+     * is taken over by this one. Writers call this in the transaction that
+     * replaces the file's chunks.
+     */
+    public void replace(String fileName, CourseTable courseTable) {
+        jdbcTemplate.update("DELETE FROM course WHERE file_name = ?", fileName);
+
+        if (courseTable != null) {
+            insert(List.of(courseTable));
+        }
+    }
+
+    /**
+     * Replaces every course, for loads that replace the whole store.
+     */
+    public void replaceAll(Collection<CourseTable> courseTables) {
+        jdbcTemplate.update("DELETE FROM course");
+        insert(courseTables);
+    }
+
+    public List<Course> findByCodes(
+        String program,
+        int year,
+        Collection<String> codes
+    ) {
+        return jdbcTemplate.query(
+            """
+            SELECT code, title, credit_hours, category
+            FROM course
+            WHERE program = ? AND year = ? AND code = ANY (?)
+            ORDER BY code
+            """,
+            ps -> {
+                ps.setString(1, program);
+                ps.setInt(2, year);
+                ps.setArray(
+                    3,
+                    ps.getConnection().createArrayOf("text", codes.toArray())
+                );
+            },
+            COURSE
+        );
+    }
+
+    /**
+     * Returns the courses whose full title appears in {@code text}, ignoring
+     * case. Titles shorter than {@code minTitleLength} are skipped so that
+     * short titles such as "Arabic" do not match unrelated questions.
+     */
+    public List<Course> findByTitleIn(
+        String program,
+        int year,
+        String text,
+        int minTitleLength
+    ) {
+        return jdbcTemplate.query(
+            """
+            SELECT code, title, credit_hours, category
+            FROM course
+            WHERE program = ? AND year = ?
+              AND length(title) >= ?
+              AND strpos(lower(?), lower(title)) > 0
+            ORDER BY length(title) DESC
+            """,
+            COURSE,
+            program,
+            year,
+            minTitleLength,
+            text
+        );
+    }
+
+    private void insert(Collection<CourseTable> courseTables) {
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO course (program, year, code, title, credit_hours, category, file_name)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (program, year, code) DO UPDATE SET
+                title = EXCLUDED.title,
+                credit_hours = EXCLUDED.credit_hours,
+                category = EXCLUDED.category,
+                file_name = EXCLUDED.file_name
+            """,
+            courseTables
+                .stream()
+                .flatMap(t ->
+                    t
+                        .courses()
+                        .stream()
+                        .map(c ->
+                            new Object[] {
+                                t.program(),
+                                t.year(),
+                                c.code(),
+                                c.title(),
+                                c.creditHours(),
+                                c.category(),
+                                t.fileName(),
+                            }
+                        )
+                )
+                .toList()
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package edu.gju.chatbot.course;
+
+import java.util.List;
+
+/**
+ * The courses extracted from one study plan file, under the program and study
+ * plan year the file was enriched with.
+ */
+public record CourseTable(
+    String fileName,
+    String program,
+    int year,
+    List<Course> courses
+) {}
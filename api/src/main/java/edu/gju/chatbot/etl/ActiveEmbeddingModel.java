@@ -0,0 +1,106 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.RagException;
+import java.util.List;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * The embedding model and dimensions {@code vector_store} is currently
+ * embedded with. Kept in the database rather than only in configuration,
+ * because the re-embedding job switches it at the moment it swaps in a table
+ * embedded with another model, on every instance at once. Until the first
+ * switch the configured model is in effect.
+ */
+public class ActiveEmbeddingModel {
+
+    private static final RowMapper<Spec> SPEC = (rs, _) ->
+        new Spec(rs.getString("model"), rs.getInt("dimensions"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Spec configured;
+
+    public ActiveEmbeddingModel(JdbcTemplate jdbcTemplate, Spec configured) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configured = configured;
+    }
+
+    public record Spec(String model, int dimensions) {
+        public EmbeddingOptions options() {
+            return EmbeddingOptions.builder()
+                .model(model)
+                .dimensions(dimensions)
+                .build();
+        }
+
+        /**
+         * Identifies embeddings made with this model, e.g. in checkpoints.
+         */
+        public String key() {
+            return model + "/" + dimensions;
+        }
+    }
+
+    public Spec current() {
+        List<Spec> active = jdbcTemplate.query(
+            "SELECT model, dimensions FROM embedding_model",
+            SPEC
+        );
+
+        return active.isEmpty() ? configured : active.getFirst();
+    }
+
+    /**
+     * Fails unless {@code spec} is still the active model, holding the model
+     * row until the calling transaction ends so a swap to another model
+     * cannot commit in between. Writers call this in the transaction that
+     * writes embeddings made with {@code spec}.
+     */
+    public void verify(Spec spec) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO embedding_model (model, dimensions)
+            VALUES (?, ?)
+            ON CONFLICT (id) DO NOTHING
+            """,
+            configured.model(),
+            configured.dimensions()
+        );
+
+        Spec active = jdbcTemplate
+            .query("SELECT model, dimensions FROM embedding_model FOR SHARE", SPEC)
+            .getFirst();
+
+        if (!active.equals(spec)) {
+            throw new RagException(
+                "Embeddings were made with " +
+                    spec.key() +
+                    " but the vector store now uses " +
+                    active.key() +
+                    "."
+            );
+        }
+    }
+
+    /**
+     * Makes {@code spec} the active model. Runs in the swap transaction and
+     * must come before locking {@code vector_store}: it waits for writers
+     * holding the model row, and writers that arrive later wait for the swap.
+     */
+    void activate(Spec spec) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO embedding_model (model, dimensions)
+            VALUES (?, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                model = EXCLUDED.model,
+                dimensions = EXCLUDED.dimensions,
+                activated_at = now()
+            """,
+            spec.model(),
+            spec.dimensions()
+        );
+    }
+}
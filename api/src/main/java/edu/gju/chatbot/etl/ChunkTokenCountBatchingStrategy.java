@@ -0,0 +1,83 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.ai.document.ContentFormatter;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+/**
+ * Batches documents up to the embedding model's input limit using the token
+ * count the splitter already recorded on each chunk, only encoding documents
+ * that carry none. The counts cover the chunk text; the embedded metadata is
+ * small and falls within the reserved share of the limit.
+ */
+public class ChunkTokenCountBatchingStrategy implements BatchingStrategy {
+
+    private final TokenCountEstimator tokenCountEstimator;
+
+    private final ContentFormatter contentFormatter;
+
+    private final int maxBatchTokens;
+
+    public ChunkTokenCountBatchingStrategy(
+        TokenCountEstimator tokenCountEstimator,
+        ContentFormatter contentFormatter,
+        int maxInputTokenCount,
+        double reservePercentage
+    ) {
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.contentFormatter = contentFormatter;
+        this.maxBatchTokens = (int) Math.round(
+            maxInputTokenCount * (1 - reservePercentage)
+        );
+    }
+
+    @Override
+    public List<List<Document>> batch(List<Document> documents) {
+        List<List<Document>> batches = new ArrayList<>();
+        List<Document> currentBatch = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (Document document : documents) {
+            int tokens = tokenCount(document);
+
+            if (tokens > maxBatchTokens) {
+                throw new IllegalArgumentException(
+                    "Tokens in a single document exceeds the maximum number of allowed input tokens"
+                );
+            }
+
+            if (currentTokens + tokens > maxBatchTokens) {
+                batches.add(currentBatch);
+                currentBatch = new ArrayList<>();
+                currentTokens = 0;
+            }
+
+            currentBatch.add(document);
+            currentTokens += tokens;
+        }
+
+        if (!currentBatch.isEmpty()) {
+            batches.add(currentBatch);
+        }
+
+        return batches;
+    }
+
+    public int tokenCount(Document document) {
+        if (
+            document.getMetadata().get(MetadataKeys.TOKEN_COUNT) instanceof
+                Number tokenCount
+        ) {
+            return tokenCount.intValue();
+        }
+
+        return tokenCountEstimator.estimate(
+            document.getFormattedContent(contentFormatter, MetadataMode.EMBED)
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.course.CourseTable;
+import java.util.List;
+import org.springframework.ai.document.Document;
+
+/**
+ * Writes the chunks of one file together with the course table extracted from
+ * it, so course lookups never answer for a file the store does not hold.
+ */
+public interface ChunkWriter {
+
+    /**
+     * @param courseTable the file's courses, or {@code null} if it has none
+     */
+    void write(List<Document> chunks, CourseTable courseTable);
+}
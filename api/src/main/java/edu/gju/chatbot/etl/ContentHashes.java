@@ -0,0 +1,50 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.FileProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.springframework.core.io.Resource;
+
+public final class ContentHashes {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // prevent instantiation
+    private ContentHashes() {}
+
+    public static String sha256(Resource file) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException(
+                "Failed to hash file " + file.getFilename() + "."
+            );
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(String content) {
+        return HexFormat.of().formatHex(
+            newDigest().digest(content.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.course.CourseTable;
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+/**
+ * Extracts the course tables of study plan documents, so exact course lookups
+ * can be answered without a vector search. Runs on the enriched document,
+ * since rows are keyed by the program and year that metadata enrichment
+ * assigns. The table is written by the writer together with the file's
+ * chunks.
+ */
+public class CourseTableExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        CourseTableExtractor.class
+    );
+
+    private final String documentType;
+
+    public CourseTableExtractor(String documentType) {
+        this.documentType = documentType;
+    }
+
+    /**
+     * Returns the course table of {@code document}, or {@code null} if it is
+     * not a study plan or its program or year is unknown.
+     */
+    public CourseTable extract(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+
+        if (!documentType.equals(metadata.get(MetadataKeys.DOCUMENT_TYPE))) {
+            return null;
+        }
+
+        String fileName = (String) metadata.get(MetadataKeys.FILE_NAME);
+
+        if (
+            !(metadata.get(MetadataKeys.PROGRAM) instanceof String program) ||
+            !(metadata.get(MetadataKeys.YEAR) instanceof Number year)
+        ) {
+            log.warn(
+                "Not indexing courses of {}, its program or year is unknown.",
+                fileName
+            );
+
+            return null;
+        }
+
+        CourseTable courseTable = new CourseTable(
+            fileName,
+            program,
+            year.intValue(),
+            CourseTableParser.parse(document.getText())
+        );
+
+        log.info(
+            "Extracted {} courses of {} ({}, {}).",
+            courseTable.courses().size(),
+            fileName,
+            program,
+            year
+        );
+
+        return courseTable;
+    }
+}
@@ -0,0 +1,219 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.course.Course;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pulls courses out of the markdown tables of a study plan. A table counts as
+ * a course table when its header names a course code column, or a title
+ * column whose cells start with a course code. Rows without a recognizable
+ * code, such as group totals, are skipped. When a table has no category
+ * column, the nearest markdown header above it (e.g. "University
+ * Requirements") is used instead.
+ * <p>
+ * A course listed in several tables, typically the requirement tables and
+ * the semester guide, keeps its first occurrence.
+ */
+final class CourseTableParser {
+
+    private static final Pattern CODE = Pattern.compile(
+        "^([A-Za-z]{2,5})\\s*-?\\s*(\\d{3,4}[A-Za-z]?)\\b\\s*(.*)$"
+    );
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    private static final Pattern SEPARATOR_CELL = Pattern.compile(":?-{3,}:?");
+
+    private CourseTableParser() {}
+
+    static List<Course> parse(String markdown) {
+        String[] lines = markdown.split("\n");
+        Map<String, Course> courses = new LinkedHashMap<>();
+        String section = null;
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+
+            if (line.startsWith("#")) {
+                section = line.replaceFirst("^#+", "").strip();
+                continue;
+            }
+
+            if (
+                !isRow(line) ||
+                i + 1 >= lines.length ||
+                !isSeparator(lines[i + 1])
+            ) {
+                continue;
+            }
+
+            Columns columns = Columns.of(cells(line));
+
+            for (i += 2; i < lines.length && isRow(lines[i].strip()); i++) {
+                if (columns == null) {
+                    continue;
+                }
+
+                Course course = columns.toCourse(
+                    cells(lines[i].strip()),
+                    section
+                );
+
+                if (course != null) {
+                    courses.putIfAbsent(course.code(), course);
+                }
+            }
+
+            i--;
+        }
+
+        return new ArrayList<>(courses.values());
+    }
+
+    private record Columns(int code, int title, int creditHours, int category) {
+        static Columns of(List<String> header) {
+            int code = -1;
+            int title = -1;
+            int creditHours = -1;
+            int hours = -1;
+            int category = -1;
+
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).toLowerCase(Locale.ROOT);
+
+                if (code < 0 && isCodeColumn(name)) {
+                    code = i;
+                } else if (title < 0 && isTitleColumn(name)) {
+                    title = i;
+                } else if (creditHours < 0 && name.contains("credit")) {
+                    creditHours = i;
+                } else if (hours < 0 && isHoursColumn(name)) {
+                    hours = i;
+                } else if (category < 0 && isCategoryColumn(name)) {
+                    category = i;
+                }
+            }
+
+            return code < 0 && title < 0
+                ? null
+                : new Columns(
+                    code,
+                    title,
+                    creditHours >= 0 ? creditHours : hours,
+                    category
+                );
+        }
+
+        Course toCourse(List<String> row, String section) {
+            String courseCode;
+            String courseTitle;
+
+            if (code >= 0) {
+                Matcher matcher = CODE.matcher(cell(row, code));
+
+                if (!matcher.matches() || !matcher.group(3).isEmpty()) {
+                    return null;
+                }
+
+                courseCode = matcher.group(1) + matcher.group(2);
+                courseTitle = cell(row, title);
+            } else {
+                Matcher matcher = CODE.matcher(cell(row, title));
+
+                if (!matcher.matches()) {
+                    return null;
+                }
+
+                courseCode = matcher.group(1) + matcher.group(2);
+                courseTitle = matcher.group(3).replaceFirst("^[-:.]\\s*", "");
+            }
+
+            if (courseTitle.isEmpty()) {
+                return null;
+            }
+
+            String courseCategory = cell(row, category);
+
+            return new Course(
+                Course.normalizeCode(courseCode),
+                courseTitle,
+                parseCreditHours(cell(row, creditHours)),
+                courseCategory.isEmpty() ? section : courseCategory
+            );
+        }
+
+        private static boolean isCodeColumn(String name) {
+            return (
+                name.contains("code") ||
+                name.matches("(course )?(no\\.?|number)")
+            );
+        }
+
+        private static boolean isTitleColumn(String name) {
+            return (
+                name.contains("title") ||
+                name.contains("name") ||
+                name.equals("course")
+            );
+        }
+
+        private static boolean isHoursColumn(String name) {
+            return (
+                name.contains("hrs") ||
+                name.contains("hours") ||
+                name.matches("c\\.?h\\.?|cr\\.?")
+            );
+        }
+
+        private static boolean isCategoryColumn(String name) {
+            return (
+                name.contains("category") ||
+                name.contains("type") ||
+                name.contains("requirement")
+            );
+        }
+
+        private static Integer parseCreditHours(String cell) {
+            Matcher matcher = NUMBER.matcher(cell);
+
+            return matcher.find() ? Integer.valueOf(matcher.group()) : null;
+        }
+
+        private static String cell(List<String> row, int index) {
+            return index >= 0 && index < row.size() ? row.get(index) : "";
+        }
+    }
+
+    private static boolean isRow(String line) {
+        return line.startsWith("|") && line.length() > 1;
+    }
+
+    private static boolean isSeparator(String line) {
+        String stripped = line.strip();
+
+        return (
+            isRow(stripped) &&
+            cells(stripped)
+                .stream()
+                .allMatch(c -> SEPARATOR_CELL.matcher(c).matches())
+        );
+    }
+
+    private static List<String> cells(String row) {
+        String inner = row.substring(
+            1,
+            row.endsWith("|") ? row.length() - 1 : row.length()
+        );
+
+        return Arrays.stream(inner.split("\\|", -1))
+            .map(String::strip)
+            .toList();
+    }
+}
@@ -0,0 +1,354 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.exception.FileProcessingException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Imports every PDF under a directory through the ingestion pipeline and
+ * exits, for seeding an environment or reloading after a schema change.
+ * Files already in the vector store are skipped. Run it without the web
+ * server, for example:
+ *
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none \
+ *     --etl.import.directory=/data/documents
+ * </pre>
+ *
+ * With {@code --etl.import.mode=rebuild} the directory instead replaces the
+ * whole vector store through {@link EtlPipelineService#rebuild}, including
+ * the files already ingested.
+ */
+public class DirectoryImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        DirectoryImportRunner.class
+    );
+
+    public enum Mode {
+        /**
+         * Ingests the files not yet in the vector store, one by one.
+         */
+        INGEST,
+
+        /**
+         * Replaces the whole vector store with the files, loaded in bulk.
+         */
+        REBUILD,
+    }
+
+    public enum Status {
+        INGESTED,
+        SKIPPED,
+        FAILED,
+    }
+
+    public record ManifestEntry(
+        String file,
+        Status status,
+        int chunks,
+        long tokens,
+        long durationMs,
+        String error
+    ) {}
+
+    private final EtlPipelineService etlPipelineService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final Path directory;
+
+    private final Mode mode;
+
+    private final int parallelism;
+
+    private final Path manifest;
+
+    public DirectoryImportRunner(
+        EtlPipelineService etlPipelineService,
+        ObjectMapper objectMapper,
+        ConfigurableApplicationContext applicationContext,
+        Path directory,
+        Mode mode,
+        int parallelism,
+        Path manifest
+    ) {
+        this.etlPipelineService = etlPipelineService;
+        this.objectMapper = objectMapper;
+        this.applicationContext = applicationContext;
+        this.directory = directory;
+        this.mode = mode;
+        this.parallelism = parallelism;
+        this.manifest = manifest;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Path> files = findPdfs();
+        log.info(
+            "Importing {} PDFs from {} in {} mode.",
+            files.size(),
+            directory,
+            mode
+        );
+
+        long start = System.nanoTime();
+        List<ManifestEntry> entries = mode == Mode.REBUILD
+            ? rebuild(files)
+            : importAll(files);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        writeManifest(entries);
+        logSummary(entries, elapsed);
+
+        boolean failed = entries
+            .stream()
+            .anyMatch(e -> e.status() == Status.FAILED);
+
+        System.exit(
+            SpringApplication.exit(applicationContext, () -> failed ? 1 : 0)
+        );
+    }
+
+    private List<ManifestEntry> importAll(List<Path> files)
+        throws InterruptedException {
+        List<ManifestEntry> entries = Collections.synchronizedList(
+            new ArrayList<>()
+        );
+        List<CompletableFuture<Void>> imports = new ArrayList<>();
+        Semaphore slots = new Semaphore(parallelism);
+
+        for (Path file : files) {
+            slots.acquire();
+            imports.add(
+                importFile(file, entries).whenComplete((_, _) -> slots.release())
+            );
+        }
+
+        CompletableFuture.allOf(
+            imports.toArray(CompletableFuture[]::new)
+        ).join();
+
+        return entries;
+    }
+
+    private CompletableFuture<Void> importFile(
+        Path file,
+        List<ManifestEntry> entries
+    ) {
+        FileProgress progress = new FileProgress(file);
+
+        CompletableFuture<Void> submission;
+        try {
+            submission = etlPipelineService.submitFile(
+                new FileSystemResource(file),
+                progress
+            );
+        } catch (RuntimeException e) {
+            submission = CompletableFuture.failedFuture(e);
+        }
+
+        return submission.handle((_, error) -> {
+            if (error == null) {
+                entries.add(progress.succeeded());
+
+                return null;
+            }
+
+            Throwable cause = error instanceof CompletionException
+                ? error.getCause()
+                : error;
+            log.error("Failed to import {}.", progress.name(), cause);
+            entries.add(progress.failed(cause.getMessage()));
+
+            return null;
+        });
+    }
+
+    /**
+     * Loads every file into a new table that replaces the vector store only
+     * once all of them are loaded, so if one file fails none is ingested.
+     */
+    private List<ManifestEntry> rebuild(List<Path> files) {
+        Map<Resource, FileProgress> progress = new LinkedHashMap<>();
+        files.forEach(file ->
+            progress.put(new FileSystemResource(file), new FileProgress(file))
+        );
+
+        try {
+            etlPipelineService.rebuild(
+                List.copyOf(progress.keySet()),
+                progress::get
+            );
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException
+                ? e.getCause()
+                : e;
+            log.error("Failed to rebuild the vector store.", cause);
+
+            return progress
+                .values()
+                .stream()
+                .map(p ->
+                    p.failed(
+                        p.error != null
+                            ? p.error.getMessage()
+                            : "Not loaded, the rebuild failed: " +
+                              cause.getMessage()
+                    )
+                )
+                .toList();
+        }
+
+        return progress.values().stream().map(FileProgress::succeeded).toList();
+    }
+
+    private List<Path> findPdfs() {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(p -> p.toString().toLowerCase().endsWith(".pdf"))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new FileProcessingException(
+                "Failed to list PDFs in " + directory + "."
+            );
+        }
+    }
+
+    private void writeManifest(List<ManifestEntry> entries) {
+        try {
+            objectMapper
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(manifest.toFile(), entries);
+            log.info("Wrote import manifest to {}.", manifest);
+        } catch (IOException e) {
+            log.error("Failed to write import manifest to {}.", manifest, e);
+        }
+    }
+
+    private void logSummary(List<ManifestEntry> entries, Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis() / 1000.0, 0.001);
+        long ingested = count(entries, Status.INGESTED);
+        long chunks = entries.stream().mapToLong(ManifestEntry::chunks).sum();
+        long tokens = entries.stream().mapToLong(ManifestEntry::tokens).sum();
+
+        log.info(
+            "Import finished in {}: {} ingested, {} skipped, {} failed. " +
+                "{} files/min, {} chunks/sec, {} tokens/sec.",
+            elapsed,
+            ingested,
+            count(entries, Status.SKIPPED),
+            count(entries, Status.FAILED),
+            String.format("%.1f", ingested / seconds * 60),
+            String.format("%.1f", chunks / seconds),
+            String.format("%.0f", tokens / seconds)
+        );
+    }
+
+    private static long count(List<ManifestEntry> entries, Status status) {
+        return entries.stream().filter(e -> e.status() == status).count();
+    }
+
+    /**
+     * Collects one file's progress through the pipeline for its manifest
+     * entry.
+     */
+    private class FileProgress implements IngestionListener {
+
+        private final Path file;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private final AtomicInteger chunks = new AtomicInteger();
+
+        private final AtomicLong tokens = new AtomicLong();
+
+        private volatile Exception error;
+
+        private FileProgress(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void onStageStarted(IngestionStage stage) {
+            started.set(true);
+        }
+
+        @Override
+        public void onStageFailed(
+            IngestionStage stage,
+            Duration duration,
+            Exception exception
+        ) {
+            error = exception;
+        }
+
+        @Override
+        public void onChunksWritten(int chunkCount, long tokenCount) {
+            chunks.set(chunkCount);
+            tokens.set(tokenCount);
+        }
+
+        private String name() {
+            return directory.relativize(file).toString();
+        }
+
+        private ManifestEntry succeeded() {
+            Status status = started.get() ? Status.INGESTED : Status.SKIPPED;
+            log.info("{} {} ({} chunks).", status, name(), chunks.get());
+
+            return new ManifestEntry(
+                name(),
+                status,
+                chunks.get(),
+                tokens.get(),
+                durationMs(),
+                null
+            );
+        }
+
+        private ManifestEntry failed(String message) {
+            return new ManifestEntry(
+                name(),
+                Status.FAILED,
+                0,
+                0,
+                durationMs(),
+                message
+            );
+        }
+
+        private long durationMs() {
+            return Duration.ofNanos(System.nanoTime() - start).toMillis();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.gju.chatbot.etl;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+/**
+ * Builds a token-budgeted stand-in for a document: its opening text, the
+ * header outline and the lines mentioning a year. That is where the title,
+ * type, year and attributes of a document are found, so metadata extraction
+ * does not need the whole text.
+ */
+final class DocumentExcerpt {
+
+    private static final Pattern YEAR = Pattern.compile("\\b(19|20)\\d{2}\\b");
+
+    private static final double BEGINNING_SHARE = 0.6;
+
+    private static final double OUTLINE_SHARE = 0.25;
+
+    private DocumentExcerpt() {}
+
+    static String of(
+        String markdown,
+        TokenCountEstimator tokenCountEstimator,
+        int tokenBudget
+    ) {
+        if (tokenCountEstimator.estimate(markdown) <= tokenBudget) {
+            return markdown;
+        }
+
+        List<String> lines = markdown.lines().toList();
+        Budget budget = new Budget(tokenCountEstimator);
+
+        StringBuilder beginning = new StringBuilder();
+        int beginningBudget = (int) (tokenBudget * BEGINNING_SHARE);
+        int lastIncluded = -1;
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (!budget.take(lines.get(i), beginningBudget)) {
+                break;
+            }
+
+            beginning.append(lines.get(i)).append('\n');
+            lastIncluded = i;
+        }
+
+        List<String> remaining = lines.subList(lastIncluded + 1, lines.size());
+
+        StringBuilder outline = new StringBuilder();
+        int outlineBudget = beginningBudget + (int) (tokenBudget * OUTLINE_SHARE);
+
+        for (String line : remaining) {
+            if (!line.startsWith("#")) {
+                continue;
+            }
+
+            if (!budget.take(line, outlineBudget)) {
+                break;
+            }
+
+            outline.append(line).append('\n');
+        }
+
+        Set<String> yearLines = new LinkedHashSet<>();
+
+        for (String line : remaining) {
+            String text = line.strip();
+
+            if (
+                line.startsWith("#") ||
+                !YEAR.matcher(text).find() ||
+                yearLines.contains(text)
+            ) {
+                continue;
+            }
+
+            if (!budget.take(text, tokenBudget)) {
+                break;
+            }
+
+            yearLines.add(text);
+        }
+
+        StringBuilder excerpt = new StringBuilder(beginning);
+
+        if (!outline.isEmpty()) {
+            excerpt.append("\n[OUTLINE OF THE REST OF THE DOCUMENT]\n");
+            excerpt.append(outline);
+        }
+
+        if (!yearLines.isEmpty()) {
+            excerpt.append("\n[LINES MENTIONING A YEAR]\n");
+            excerpt.append(String.join("\n", yearLines)).append('\n');
+        }
+
+        return excerpt.toString();
+    }
+
+    private static final class Budget {
+
+        private final TokenCountEstimator tokenCountEstimator;
+
+        private int used;
+
+        private Budget(TokenCountEstimator tokenCountEstimator) {
+            this.tokenCountEstimator = tokenCountEstimator;
+        }
+
+        /**
+         * Counts the line against the budget if it fits under {@code limit}
+         * tokens used in total.
+         */
+        private boolean take(String line, int limit) {
+            int tokens = line.isEmpty()
+                ? 1
+                : tokenCountEstimator.estimate(line) + 1;
+
+            if (used + tokens > limit) {
+                return false;
+            }
+
+            used += tokens;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.RagException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.ContentFormatter;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Sends embedding batches concurrently on virtual threads instead of one
+ * round-trip at a time, while keeping the provider's request and token rate
+ * limits through a shared {@link EmbeddingRateLimiter}.
+ */
+public class EmbeddingDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        EmbeddingDispatcher.class
+    );
+
+    /**
+     * OpenAI's millisecond-precision companion to {@code Retry-After}.
+     */
+    private static final String RETRY_AFTER_MS = "retry-after-ms";
+
+    private static final Pattern RATE_LIMITED = Pattern.compile(
+        "\\b429\\b|rate limit",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final Pattern RETRY_AFTER = Pattern.compile(
+        "try again in ([0-9.]+)\\s*(ms|s)",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private final EmbeddingModel embeddingModel;
+
+    private final ChunkTokenCountBatchingStrategy batchingStrategy;
+
+    private final ContentFormatter contentFormatter;
+
+    private final EmbeddingRateLimiter rateLimiter;
+
+    private final Semaphore concurrentRequests;
+
+    private final int maxRetries;
+
+    private final Duration defaultRetryAfter;
+
+    private final ExecutorService executor =
+        Executors.newVirtualThreadPerTaskExecutor();
+
+    public EmbeddingDispatcher(
+        EmbeddingModel embeddingModel,
+        ChunkTokenCountBatchingStrategy batchingStrategy,
+        ContentFormatter contentFormatter,
+        EmbeddingRateLimiter rateLimiter,
+        int maxConcurrentRequests,
+        int maxRetries,
+        Duration defaultRetryAfter
+    ) {
+        this.embeddingModel = embeddingModel;
+        this.batchingStrategy = batchingStrategy;
+        this.contentFormatter = contentFormatter;
+        this.rateLimiter = rateLimiter;
+        this.concurrentRequests = new Semaphore(maxConcurrentRequests);
+        this.maxRetries = maxRetries;
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+
+    /**
+     * Returns one embedding per document, in the order given, made with the
+     * model and dimensions in {@code options}.
+     */
+    public List<float[]> embed(
+        List<Document> documents,
+        EmbeddingOptions options
+    ) {
+        return embed(documents, options, (_, _) -> {});
+    }
+
+    /**
+     * Like {@link #embed(List, EmbeddingOptions)}, handing every batch to
+     * {@code onBatch} with its embeddings as soon as that batch completes.
+     */
+    public List<float[]> embed(
+        List<Document> documents,
+        EmbeddingOptions options,
+        BiConsumer<List<Document>, List<float[]>> onBatch
+    ) {
+        List<List<Document>> batches = batchingStrategy.batch(documents);
+
+        List<CompletableFuture<List<float[]>>> pending = batches
+            .stream()
+            .map(batch ->
+                CompletableFuture.supplyAsync(
+                    () -> {
+                        List<float[]> embeddings = embedBatch(batch, options);
+                        onBatch.accept(batch, embeddings);
+
+                        return embeddings;
+                    },
+                    executor
+                )
+            )
+            .toList();
+
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        try {
+            for (CompletableFuture<List<float[]>> batch : pending) {
+                embeddings.addAll(batch.join());
+            }
+        } catch (CompletionException e) {
+            pending.forEach(p -> p.cancel(true));
+
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+
+        log.info(
+            "Embedded {} documents in {} concurrent batches.",
+            documents.size(),
+            batches.size()
+        );
+
+        return embeddings;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private List<float[]> embedBatch(
+        List<Document> batch,
+        EmbeddingOptions options
+    ) {
+        List<String> texts = batch
+            .stream()
+            .map(d -> d.getFormattedContent(contentFormatter, MetadataMode.EMBED))
+            .toList();
+        int tokens = batch.stream().mapToInt(batchingStrategy::tokenCount).sum();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rateLimiter.acquire(tokens);
+                concurrentRequests.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RagException("Interrupted while waiting to embed.", e);
+            }
+
+            try {
+                EmbeddingResponse response = embeddingModel.call(
+                    new EmbeddingRequest(texts, options)
+                );
+
+                return response
+                    .getResults()
+                    .stream()
+                    .map(Embedding::getOutput)
+                    .toList();
+            } catch (RuntimeException e) {
+                if (!isRetryable(e) || attempt >= maxRetries) {
+                    throw e;
+                }
+
+                Duration retryAfter = retryAfter(e);
+                log.warn(
+                    "Embedding request throttled, retrying in {} (attempt {}/{}).",
+                    retryAfter,
+                    attempt + 1,
+                    maxRetries
+                );
+                rateLimiter.pause(retryAfter);
+            } finally {
+                concurrentRequests.release();
+            }
+        }
+    }
+
+    /**
+     * A 429 from the provider, or an error Spring AI classifies as
+     * transient. Spring AI reports other HTTP errors with the status only in
+     * the message, which is matched as a last resort.
+     */
+    private static boolean isRetryable(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientAiException) {
+                return true;
+            }
+
+            if (
+                cause instanceof HttpStatusCodeException http &&
+                http.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+            ) {
+                return true;
+            }
+        }
+
+        return (
+            e.getMessage() != null && RATE_LIMITED.matcher(e.getMessage()).find()
+        );
+    }
+
+    /**
+     * Backs off as long as the provider asks, taken from the
+     * {@code retry-after-ms} or {@code Retry-After} response header, or else
+     * from the error body ("Please try again in 1.2s"), and falls back to the
+     * configured delay when neither says.
+     */
+    private Duration retryAfter(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (
+                cause instanceof HttpStatusCodeException http &&
+                http.getResponseHeaders() != null
+            ) {
+                Duration retryAfter = retryAfter(http.getResponseHeaders());
+
+                if (retryAfter != null) {
+                    return retryAfter;
+                }
+            }
+        }
+
+        Matcher matcher = RETRY_AFTER.matcher(
+            e.getMessage() != null ? e.getMessage() : ""
+        );
+
+        if (!matcher.find()) {
+            return defaultRetryAfter;
+        }
+
+        double amount = Double.parseDouble(matcher.group(1));
+        long millis = matcher.group(2).equalsIgnoreCase("ms")
+            ? (long) Math.ceil(amount)
+            : (long) Math.ceil(amount * 1000);
+
+        return Duration.ofMillis(millis);
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String millis = headers.getFirst(RETRY_AFTER_MS);
+
+        try {
+            if (millis != null) {
+                return Duration.ofMillis(
+                    (long) Math.ceil(Double.parseDouble(millis.trim()))
+                );
+            }
+
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+
+            if (retryAfter == null) {
+                return null;
+            }
+
+            // Either delay seconds or an HTTP date.
+            if (retryAfter.trim().chars().allMatch(Character::isDigit)) {
+                return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+            }
+
+            Duration untilDate = Duration.between(
+                Instant.now(),
+                ZonedDateTime.parse(
+                    retryAfter.trim(),
+                    DateTimeFormatter.RFC_1123_DATE_TIME
+                )
+            );
+
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
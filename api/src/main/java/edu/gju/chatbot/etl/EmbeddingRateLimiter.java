@@ -0,0 +1,93 @@
+package edu.gju.chatbot.etl;
+
+import java.time.Duration;
+
+/**
+ * Enforces requests-per-minute and tokens-per-minute budgets with two
+ * continuously refilling buckets. Callers block in {@link #acquire(int)} until
+ * both buckets can cover their request, and a rate-limited response can pause
+ * all callers until the provider's retry-after has passed.
+ */
+public class EmbeddingRateLimiter {
+
+    private static final double NANOS_PER_MINUTE = 60_000_000_000d;
+
+    private final double requestsPerMinute;
+
+    private final double tokensPerMinute;
+
+    private double availableRequests;
+
+    private double availableTokens;
+
+    private long lastRefill;
+
+    private long pausedUntil;
+
+    public EmbeddingRateLimiter(int requestsPerMinute, int tokensPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.availableRequests = requestsPerMinute;
+        this.availableTokens = tokensPerMinute;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    public void acquire(int tokens) throws InterruptedException {
+        // A single batch larger than the whole budget could never be admitted.
+        double requestedTokens = Math.min(tokens, tokensPerMinute);
+
+        while (true) {
+            long waitNanos;
+
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+
+                if (
+                    now >= pausedUntil &&
+                    availableRequests >= 1 &&
+                    availableTokens >= requestedTokens
+                ) {
+                    availableRequests -= 1;
+                    availableTokens -= requestedTokens;
+                    return;
+                }
+
+                waitNanos = Math.max(
+                    pausedUntil - now,
+                    Math.max(
+                        nanosUntil(1 - availableRequests, requestsPerMinute),
+                        nanosUntil(
+                            requestedTokens - availableTokens,
+                            tokensPerMinute
+                        )
+                    )
+                );
+            }
+
+            Thread.sleep(Duration.ofNanos(Math.max(waitNanos, 1_000_000)));
+        }
+    }
+
+    public synchronized void pause(Duration retryAfter) {
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + retryAfter.toNanos());
+    }
+
+    private void refill(long now) {
+        double elapsedMinutes = (now - lastRefill) / NANOS_PER_MINUTE;
+        availableRequests = Math.min(
+            requestsPerMinute,
+            availableRequests + elapsedMinutes * requestsPerMinute
+        );
+        availableTokens = Math.min(
+            tokensPerMinute,
+            availableTokens + elapsedMinutes * tokensPerMinute
+        );
+        lastRefill = now;
+    }
+
+    private static long nanosUntil(double missing, double perMinute) {
+        return missing <= 0 ? 0 : (long) ((missing / perMinute) * NANOS_PER_MINUTE);
+    }
+}
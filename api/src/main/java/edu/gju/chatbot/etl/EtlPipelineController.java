@@ -1,8 +1,14 @@
 package edu.gju.chatbot.etl;
 
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -11,12 +17,41 @@ import org.springframework.web.multipart.MultipartFile;
 @RestController
 public class EtlPipelineController {
 
-  private final EtlPipelineService etlPipelineService;
+  private final IngestionJobService ingestionJobService;
+
+  private final VectorStoreReEmbedder vectorStoreReEmbedder;
+
+  private final ReEmbeddingJobRepository reEmbeddingJobRepository;
 
   @PostMapping("/files/process")
-  public ResponseEntity<Void> ingestFile(@RequestParam("file") MultipartFile file) {
-    etlPipelineService.processFile(file.getResource());
+  public ResponseEntity<IngestionJobSubmission> ingestFile(
+      @RequestParam("file") MultipartFile file) {
+    IngestionJobSubmission submission = ingestionJobService.submit(file);
+
+    return ResponseEntity.accepted()
+        .location(URI.create("/files/jobs/" + submission.jobId()))
+        .body(submission);
+  }
+
+  @PostMapping("/files/process/batch")
+  public ResponseEntity<List<IngestionJobSubmission>> ingestFiles(
+      @RequestParam("files") List<MultipartFile> files) {
+    return ResponseEntity.accepted().body(ingestionJobService.submitAll(files));
+  }
+
+  @GetMapping("/files/jobs/{id}")
+  public ResponseEntity<IngestionJob> getJob(@PathVariable("id") UUID id) {
+    return ResponseEntity.of(ingestionJobService.getJob(id));
+  }
+
+  @PostMapping("/vector-store/re-embedding")
+  public ResponseEntity<ReEmbeddingJob> reEmbed(
+      @RequestBody ActiveEmbeddingModel.Spec model) {
+    return ResponseEntity.accepted().body(vectorStoreReEmbedder.start(model));
+  }
 
-    return ResponseEntity.ok().build();
+  @GetMapping("/vector-store/re-embedding")
+  public ResponseEntity<ReEmbeddingJob> getReEmbeddingJob() {
+    return ResponseEntity.of(reEmbeddingJobRepository.findLatest());
   }
 }
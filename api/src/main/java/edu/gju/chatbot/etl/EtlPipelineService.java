@@ -1,10 +1,24 @@
 package edu.gju.chatbot.etl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import edu.gju.chatbot.course.CourseTable;
 import edu.gju.chatbot.exception.UnsupportedFileTypeException;
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
@@ -12,6 +26,19 @@ import org.springframework.stereotype.Service;
 @Service
 public class EtlPipelineService {
 
+    private static final Logger log = LoggerFactory.getLogger(
+        EtlPipelineService.class
+    );
+
+    private static final TypeReference<CheckpointedDocument> DOCUMENT =
+        new TypeReference<>() {};
+
+    private static final TypeReference<List<CheckpointedDocument>> DOCUMENTS =
+        new TypeReference<>() {};
+
+    private static final TypeReference<Map<String, Object>> METADATA =
+        new TypeReference<>() {};
+
     private final OcrScanner ocrScanner;
 
     private final MarkdownHierarchyEnricher markdownHierarchyEnricher;
@@ -20,30 +47,360 @@ public class EtlPipelineService {
 
     private final FileMetadataEnricher fileMetadataEnricher;
 
-    private final VectorStore vectorStore;
+    private final VectorStoreWriter vectorStoreWriter;
 
-    public void processFile(Resource file) {
-        String fileName = file.getFilename();
-        String fileType = fileName.substring(fileName.lastIndexOf('.') + 1);
+    private final VectorStoreBulkLoader vectorStoreBulkLoader;
 
-        if (!fileType.equals("pdf")) {
+    private final StageExecutors stageExecutors;
+
+    private final IngestionCheckpointRepository checkpointRepository;
+
+    private final CourseTableExtractor courseTableExtractor;
+
+    public void validateFileName(String fileName) {
+        if (fileName == null || !fileName.toLowerCase().endsWith(".pdf")) {
             throw new UnsupportedFileTypeException("Only PDFs are supported.");
         }
+    }
+
+    public void processFile(Resource file) {
+        processFile(file, IngestionListener.NOOP);
+    }
+
+    public void processFile(Resource file, IngestionListener listener) {
+        join(submitFile(file, listener));
+    }
+
+    /**
+     * Runs the file through the pipeline with every stage on its own bounded
+     * executor, so several files can be in different stages at the same time.
+     */
+    public CompletableFuture<Void> submitFile(
+        Resource file,
+        IngestionListener listener
+    ) {
+        validateFileName(file.getFilename());
+
+        String fileHash = ContentHashes.sha256(file);
+
+        if (vectorStoreWriter.containsFile(fileHash)) {
+            log.info(
+                "Skipping {}, an identical file is already ingested.",
+                file.getFilename()
+            );
+
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return submit(file, fileHash, listener, vectorStoreWriter).thenRun(() ->
+            checkpointRepository.clear(fileHash)
+        );
+    }
+
+    /**
+     * Rebuilds the whole vector store from the given files using the bulk
+     * loader. The live table keeps serving searches until every file has been
+     * loaded, then it is swapped out in one step; if any file fails the live
+     * table is left untouched. Each file reports its progress to the listener
+     * {@code listeners} returns for it.
+     */
+    public void rebuild(
+        List<Resource> files,
+        Function<Resource, IngestionListener> listeners
+    ) {
+        files.forEach(file -> validateFileName(file.getFilename()));
+
+        try (
+            VectorStoreBulkLoader.Session session = vectorStoreBulkLoader.begin()
+        ) {
+            List<String> fileHashes = files
+                .stream()
+                .map(ContentHashes::sha256)
+                .toList();
+
+            List<CompletableFuture<Void>> submissions = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                submissions.add(
+                    submit(
+                        files.get(i),
+                        fileHashes.get(i),
+                        listeners.apply(files.get(i)),
+                        session
+                    )
+                );
+            }
+
+            join(
+                CompletableFuture.allOf(
+                    submissions.toArray(CompletableFuture[]::new)
+                )
+            );
+
+            session.commit();
+            fileHashes.forEach(checkpointRepository::clear);
+        }
+    }
 
-        Document ocrScan = ocrScanner.scan(file);
+    /**
+     * Hierarchy enrichment and metadata enrichment are independent LLM calls
+     * over the OCR output, so they run side by side and their results are
+     * merged before splitting. Hierarchy enrichment already receives the
+     * markdown while it is being scanned, so it can start levelling the
+     * early pages before the scan finishes.
+     *
+     * <p>Every stage's output is checkpointed under the file hash until the
+     * file is written, so a retry resumes after the last completed stage.
+     * Course tables are extracted from the merged document on every attempt
+     * and handed to the writer with the chunks, which writes both together.
+     */
+    private CompletableFuture<Void> submit(
+        Resource file,
+        String fileHash,
+        IngestionListener listener,
+        ChunkWriter writer
+    ) {
+        MarkdownHierarchyEnricher.Session hierarchySession =
+            markdownHierarchyEnricher.startSession();
 
-        Document enrichedMarkdownHierarchy = markdownHierarchyEnricher.enrich(
-            ocrScan
+        CompletableFuture<Document> ocrScan = CompletableFuture.supplyAsync(
+            () ->
+                runStage(IngestionStage.OCR, listener, () ->
+                    scan(file, fileHash, hierarchySession)
+                ),
+            stageExecutors.get(IngestionStage.OCR)
         );
 
-        Document enrichedSummary = fileMetadataEnricher.enrich(
-            enrichedMarkdownHierarchy
+        CompletableFuture<Document> enrichedMarkdownHierarchy =
+            ocrScan.thenApplyAsync(
+                scan ->
+                    runStage(IngestionStage.HIERARCHY_ENRICHMENT, listener, () ->
+                        checkpointed(
+                            fileHash,
+                            IngestionStage.HIERARCHY_ENRICHMENT,
+                            DOCUMENT,
+                            () ->
+                                CheckpointedDocument.of(
+                                    hierarchySession.finish(copyOf(scan))
+                                )
+                        ).toDocument()
+                    ),
+                stageExecutors.get(IngestionStage.HIERARCHY_ENRICHMENT)
+            );
+        enrichedMarkdownHierarchy.whenComplete((_, _) ->
+            hierarchySession.close()
         );
 
-        List<Document> splitChunks = markdownHeaderTextSplitter.split(
-            enrichedSummary
+        CompletableFuture<Document> enrichedMetadata = ocrScan.thenApplyAsync(
+            scan ->
+                runStage(IngestionStage.METADATA_ENRICHMENT, listener, () ->
+                    new Document(
+                        scan.getId(),
+                        scan.getText(),
+                        checkpointed(
+                            fileHash,
+                            IngestionStage.METADATA_ENRICHMENT,
+                            METADATA,
+                            () ->
+                                fileMetadataEnricher
+                                    .enrich(copyOf(scan))
+                                    .getMetadata()
+                        )
+                    )
+                ),
+            stageExecutors.get(IngestionStage.METADATA_ENRICHMENT)
         );
 
-        vectorStore.add(splitChunks);
+        return enrichedMarkdownHierarchy
+            .thenCombine(enrichedMetadata, EtlPipelineService::merge)
+            .thenApplyAsync(
+                enrichedDocument ->
+                    runStage(IngestionStage.SPLITTING, listener, () ->
+                        new SplitFile(
+                            checkpointed(
+                                fileHash,
+                                IngestionStage.SPLITTING,
+                                DOCUMENTS,
+                                () ->
+                                    markdownHeaderTextSplitter
+                                        .split(enrichedDocument)
+                                        .stream()
+                                        .map(CheckpointedDocument::of)
+                                        .toList()
+                            )
+                                .stream()
+                                .map(CheckpointedDocument::toDocument)
+                                .toList(),
+                            courseTableExtractor.extract(enrichedDocument)
+                        )
+                    ),
+                stageExecutors.get(IngestionStage.SPLITTING)
+            )
+            .thenAcceptAsync(
+                splitFile ->
+                    runStage(IngestionStage.EMBEDDING, listener, () -> {
+                        writer.write(
+                            splitFile.chunks(),
+                            splitFile.courseTable()
+                        );
+                        listener.onChunksWritten(
+                            splitFile.chunks().size(),
+                            tokenCount(splitFile.chunks())
+                        );
+                        return null;
+                    }),
+                stageExecutors.get(IngestionStage.EMBEDDING)
+            );
+    }
+
+    /**
+     * Hierarchy enrichment is fed the markdown as it is scanned, unless its
+     * own checkpoint means it will not run again.
+     */
+    private Document scan(
+        Resource file,
+        String fileHash,
+        MarkdownHierarchyEnricher.Session hierarchySession
+    ) {
+        Consumer<String> onMarkdown = checkpointRepository.exists(
+                fileHash,
+                IngestionStage.HIERARCHY_ENRICHMENT
+            )
+            ? _ -> {}
+            : hierarchySession::append;
+
+        Optional<CheckpointedDocument> saved = checkpointRepository.load(
+            fileHash,
+            IngestionStage.OCR,
+            DOCUMENT
+        );
+
+        if (saved.isPresent()) {
+            onMarkdown.accept(saved.get().text());
+
+            return saved.get().toDocument();
+        }
+
+        Document scan = ocrScanner.scan(file, fileHash, onMarkdown);
+        checkpointRepository.save(
+            fileHash,
+            IngestionStage.OCR,
+            CheckpointedDocument.of(scan)
+        );
+
+        return scan;
+    }
+
+    private <T> T checkpointed(
+        String fileHash,
+        IngestionStage stage,
+        TypeReference<T> type,
+        Supplier<T> action
+    ) {
+        Optional<T> saved = checkpointRepository.load(fileHash, stage, type);
+
+        if (saved.isPresent()) {
+            log.info("Resuming {} of {} from its checkpoint.", stage, fileHash);
+
+            return saved.get();
+        }
+
+        T result = action.get();
+        checkpointRepository.save(fileHash, stage, result);
+
+        return result;
+    }
+
+    /**
+     * Both enrichers write into the document's metadata, so each branch gets
+     * its own map.
+     */
+    private static Document copyOf(Document document) {
+        return new Document(
+            document.getId(),
+            document.getText(),
+            new HashMap<>(document.getMetadata())
+        );
+    }
+
+    private static Document merge(
+        Document enrichedMarkdownHierarchy,
+        Document enrichedMetadata
+    ) {
+        Map<String, Object> metadata = new HashMap<>(
+            enrichedMarkdownHierarchy.getMetadata()
+        );
+        metadata.putAll(enrichedMetadata.getMetadata());
+
+        return new Document(
+            enrichedMarkdownHierarchy.getId(),
+            enrichedMarkdownHierarchy.getText(),
+            metadata
+        );
+    }
+
+    private static long tokenCount(List<Document> chunks) {
+        return chunks
+            .stream()
+            .map(c -> c.getMetadata().get(MetadataKeys.TOKEN_COUNT))
+            .mapToLong(t -> t instanceof Number n ? n.longValue() : 0)
+            .sum();
+    }
+
+    private record SplitFile(List<Document> chunks, CourseTable courseTable) {}
+
+    private record CheckpointedDocument(
+        String id,
+        String text,
+        Map<String, Object> metadata
+    ) {
+        static CheckpointedDocument of(Document document) {
+            return new CheckpointedDocument(
+                document.getId(),
+                document.getText(),
+                document.getMetadata()
+            );
+        }
+
+        Document toDocument() {
+            return new Document(id, text, new HashMap<>(metadata));
+        }
+    }
+
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private <T> T runStage(
+        IngestionStage stage,
+        IngestionListener listener,
+        Supplier<T> action
+    ) {
+        listener.onStageStarted(stage);
+        long start = System.nanoTime();
+
+        try {
+            T result = action.get();
+            listener.onStageCompleted(
+                stage,
+                Duration.ofNanos(System.nanoTime() - start)
+            );
+
+            return result;
+        } catch (RuntimeException e) {
+            listener.onStageFailed(
+                stage,
+                Duration.ofNanos(System.nanoTime() - start),
+                e
+            );
+            throw e;
+        }
     }
 }
@@ -10,14 +10,13 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 
-@RequiredArgsConstructor
 public class FileMetadataEnricher implements Function<Document, Document> {
 
     private static final Logger log = LoggerFactory.getLogger(
@@ -34,6 +33,7 @@ public class FileMetadataEnricher implements Function<Document, Document> {
             - Extract the year if mentioned ("year") as an integer, or null if no year is required for the document type.
             - Extract the required attributes ("attributes") for the selected document type, key of the attribute name, value of the attribute value.
             - You may use the metadata at the top for extra context to decide what attributes can be extracted.
+            - Long documents are shortened to their beginning, an outline of their remaining headers and the lines mentioning a year.
 
             DOCUMENT TYPES:
             {document_types}
@@ -47,39 +47,51 @@ public class FileMetadataEnricher implements Function<Document, Document> {
 
     private final DocumentTypeRegistry documentTypeRegistry;
 
+    private final TokenCountEstimator tokenCountEstimator;
+
+    private final int excerptTokenBudget;
+
+    /**
+     * The registry is immutable, so the system prompt is rendered once. It is
+     * identical for every document, which keeps it a cacheable prefix on the
+     * provider's side.
+     */
+    private final String systemPrompt;
+
+    public FileMetadataEnricher(
+        ChatClient chatClient,
+        DocumentTypeRegistry documentTypeRegistry,
+        TokenCountEstimator tokenCountEstimator,
+        int excerptTokenBudget
+    ) {
+        this.chatClient = chatClient;
+        this.documentTypeRegistry = documentTypeRegistry;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.excerptTokenBudget = excerptTokenBudget;
+        this.systemPrompt = renderSystemPrompt(documentTypeRegistry);
+    }
+
     public Document enrich(Document document) {
         return apply(document);
     }
 
     @Override
     public Document apply(Document document) {
-        String formattedDocumentTypes = documentTypeRegistry
-            .getDocumentTypes()
-            .stream()
-            .map(DocumentType::toFormattedString)
-            .collect(Collectors.joining("\n\n"));
-
-        String formattedDocumentAttributes = documentTypeRegistry
-            .getDocumentAttributes()
-            .stream()
-            .map(DocumentAttribute::toFormattedString)
-            .collect(Collectors.joining("\n"));
+        String excerpt = DocumentExcerpt.of(
+            document.getText(),
+            tokenCountEstimator,
+            excerptTokenBudget
+        );
 
         EnrichedMetadata enrichedMetadata = chatClient
             .prompt()
-            .user(u -> u.text(document.getFormattedContent()))
-            .system(s ->
-                s.text(
-                    SYSTEM_PROMPT_TEMPLATE.render(
-                        Map.of(
-                            "document_types",
-                            formattedDocumentTypes,
-                            "document_attributes",
-                            formattedDocumentAttributes
-                        )
-                    )
+            .user(u ->
+                u.text(
+                    new Document(excerpt, document.getMetadata())
+                        .getFormattedContent()
                 )
             )
+            .system(systemPrompt)
             .call()
             .entity(EnrichedMetadata.class);
 
@@ -133,6 +145,31 @@ public class FileMetadataEnricher implements Function<Document, Document> {
         return document;
     }
 
+    private static String renderSystemPrompt(
+        DocumentTypeRegistry documentTypeRegistry
+    ) {
+        String formattedDocumentTypes = documentTypeRegistry
+            .getDocumentTypes()
+            .stream()
+            .map(DocumentType::toFormattedString)
+            .collect(Collectors.joining("\n\n"));
+
+        String formattedDocumentAttributes = documentTypeRegistry
+            .getDocumentAttributes()
+            .stream()
+            .map(DocumentAttribute::toFormattedString)
+            .collect(Collectors.joining("\n"));
+
+        return SYSTEM_PROMPT_TEMPLATE.render(
+            Map.of(
+                "document_types",
+                formattedDocumentTypes,
+                "document_attributes",
+                formattedDocumentAttributes
+            )
+        );
+    }
+
     private record EnrichedMetadata(
         String title,
         String documentType,
@@ -0,0 +1,216 @@
+package edu.gju.chatbot.etl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The header lines of a markdown document, each with a short excerpt of the
+ * text beneath it. Header IDs are numbered in line order like
+ * {@link MarkdownHierarchyEnricher} numbers them, so levels assigned to the
+ * skeleton apply directly to the full document.
+ */
+final class HeaderSkeleton {
+
+    record Header(String id, String line, String snippet) {}
+
+    private final List<Header> headers;
+
+    private HeaderSkeleton(List<Header> headers) {
+        this.headers = headers;
+    }
+
+    static HeaderSkeleton of(String markdown, int snippetLength) {
+        Builder builder = new Builder(snippetLength);
+        builder.append(markdown);
+
+        return builder.build();
+    }
+
+    List<Header> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Splits the skeleton into windows of at most {@code size} headers, each
+     * repeating the last {@code overlap} headers of the window before it so
+     * the windows can be stitched back together.
+     */
+    List<List<Header>> windows(int size, int overlap) {
+        if (overlap < 0 || overlap >= size) {
+            throw new IllegalArgumentException(
+                "Window overlap must be between 0 and the window size."
+            );
+        }
+
+        List<List<Header>> windows = new ArrayList<>();
+
+        for (int start = 0; start < headers.size(); start += size - overlap) {
+            int end = Math.min(headers.size(), start + size);
+            windows.add(headers.subList(start, end));
+
+            if (end == headers.size()) {
+                break;
+            }
+        }
+
+        return windows;
+    }
+
+    static String format(List<Header> headers) {
+        return headers
+            .stream()
+            .map(h ->
+                h.snippet().isEmpty()
+                    ? h.id() + h.line()
+                    : h.id() + h.line() + "\n> " + h.snippet()
+            )
+            .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Merges the levels assigned to each window into one map. A window only
+     * sees part of the document, so its levels may be consistently shifted
+     * against the previous window; the most common difference on the
+     * overlapping headers is applied to the rest of the window.
+     */
+    static Map<String, Integer> stitch(
+        List<List<Header>> windows,
+        List<Map<String, Integer>> windowLevels
+    ) {
+        Map<String, Integer> levels = new HashMap<>();
+
+        for (int w = 0; w < windows.size(); w++) {
+            List<Header> window = windows.get(w);
+            Map<String, Integer> assigned = windowLevels.get(w);
+            int offset = offset(window, assigned, levels);
+
+            for (Header header : window) {
+                Integer level = assigned.get(header.id());
+
+                if (levels.containsKey(header.id()) || level == null) {
+                    continue;
+                }
+
+                levels.put(
+                    header.id(),
+                    level == -1 ? -1 : Math.clamp(level + offset, 1, 6)
+                );
+            }
+        }
+
+        return levels;
+    }
+
+    private static int offset(
+        List<Header> window,
+        Map<String, Integer> assigned,
+        Map<String, Integer> stitched
+    ) {
+        Map<Integer, Integer> counts = new HashMap<>();
+
+        for (Header header : window) {
+            Integer previous = stitched.get(header.id());
+            Integer current = assigned.get(header.id());
+
+            if (
+                previous == null ||
+                current == null ||
+                previous == -1 ||
+                current == -1
+            ) {
+                continue;
+            }
+
+            counts.merge(previous - current, 1, Integer::sum);
+        }
+
+        return counts
+            .entrySet()
+            .stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(0);
+    }
+
+    /**
+     * Builds a skeleton from markdown that arrives in parts, parsing each part
+     * once. Parts are joined by a blank line, so a part never ends inside a
+     * line; only the excerpt of the last header seen may still grow.
+     */
+    static final class Builder {
+
+        private final int snippetLength;
+
+        private final List<Header> headers = new ArrayList<>();
+
+        private final StringBuilder snippet = new StringBuilder();
+
+        private String headerLine;
+
+        Builder(int snippetLength) {
+            this.snippetLength = snippetLength;
+        }
+
+        void append(String markdown) {
+            for (String line : (Iterable<String>) markdown.lines()::iterator) {
+                if (line.startsWith("#")) {
+                    if (headerLine != null) {
+                        headers.add(header(headers.size(), headerLine, snippet));
+                    }
+
+                    headerLine = line;
+                    snippet.setLength(0);
+                    continue;
+                }
+
+                if (headerLine != null && snippet.length() < snippetLength) {
+                    String text = line.strip();
+
+                    if (!text.isEmpty()) {
+                        if (!snippet.isEmpty()) {
+                            snippet.append(' ');
+                        }
+
+                        snippet.append(
+                            text,
+                            0,
+                            Math.min(
+                                text.length(),
+                                snippetLength - snippet.length()
+                            )
+                        );
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the headers whose excerpt is final: every header seen so
+         * far but the last.
+         */
+        List<Header> completeHeaders() {
+            return headers;
+        }
+
+        HeaderSkeleton build() {
+            List<Header> all = new ArrayList<>(headers);
+
+            if (headerLine != null) {
+                all.add(header(all.size(), headerLine, snippet));
+            }
+
+            return new HeaderSkeleton(all);
+        }
+    }
+
+    private static Header header(int index, String line, StringBuilder snippet) {
+        return new Header(
+            "<header-id-" + (index + 1) + ">",
+            line,
+            snippet.toString()
+        );
+    }
+}
@@ -0,0 +1,176 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import edu.gju.chatbot.exception.RagException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps the output of each completed stage of a file, keyed by the file's
+ * content hash, until the file has been written to the vector store. A retry
+ * after a failure late in the pipeline resumes from the last completed stage
+ * instead of paying for OCR, enrichment and embedding again.
+ */
+@RequiredArgsConstructor
+@Repository
+public class IngestionCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    public <T> Optional<T> load(
+        String fileHash,
+        IngestionStage stage,
+        TypeReference<T> type
+    ) {
+        return jdbcTemplate
+            .query(
+                "SELECT payload FROM ingestion_checkpoint WHERE file_hash = ? AND stage = ?",
+                (rs, _) -> rs.getString("payload"),
+                fileHash,
+                stage.name()
+            )
+            .stream()
+            .findFirst()
+            .map(payload -> fromJson(payload, type));
+    }
+
+    public boolean exists(String fileHash, IngestionStage stage) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM ingestion_checkpoint WHERE file_hash = ? AND stage = ?)",
+                Boolean.class,
+                fileHash,
+                stage.name()
+            )
+        );
+    }
+
+    public void save(String fileHash, IngestionStage stage, Object payload) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO ingestion_checkpoint (file_hash, stage, payload)
+            VALUES (?, ?, ?::jsonb)
+            ON CONFLICT (file_hash, stage)
+            DO UPDATE SET payload = EXCLUDED.payload, created_at = now()
+            """,
+            fileHash,
+            stage.name(),
+            toJson(payload)
+        );
+    }
+
+    /**
+     * Records the embeddings of one completed batch, so a file that fails
+     * halfway through embedding only embeds the remaining batches on retry.
+     * Embeddings are recorded under the model that made them, so a retry
+     * after the embedding model was switched does not reuse them.
+     */
+    public void saveEmbeddings(
+        String fileHash,
+        String model,
+        Map<String, float[]> embeddings
+    ) {
+        List<Object[]> rows = new ArrayList<>(embeddings.size());
+
+        embeddings.forEach((contentHash, embedding) ->
+            rows.add(
+                new Object[] {
+                    fileHash,
+                    contentHash,
+                    model,
+                    new PGvector(embedding),
+                }
+            )
+        );
+
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO embedding_checkpoint (file_hash, content_hash, model, embedding)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (file_hash, model, content_hash)
+            DO UPDATE SET embedding = EXCLUDED.embedding
+            """,
+            rows
+        );
+    }
+
+    public Map<String, float[]> findEmbeddings(
+        String model,
+        Collection<String> contentHashes
+    ) {
+        Map<String, float[]> embeddings = new HashMap<>();
+
+        jdbcTemplate.query(
+            """
+            SELECT DISTINCT ON (content_hash) content_hash, embedding::text AS embedding
+            FROM embedding_checkpoint
+            WHERE model = ? AND content_hash = ANY (?)
+            """,
+            ps -> {
+                ps.setString(1, model);
+                ps.setArray(
+                    2,
+                    ps
+                        .getConnection()
+                        .createArrayOf("text", contentHashes.toArray())
+                );
+            },
+            rs -> {
+                embeddings.put(
+                    rs.getString("content_hash"),
+                    parseVector(rs.getString("embedding"))
+                );
+            }
+        );
+
+        return embeddings;
+    }
+
+    public void clear(String fileHash) {
+        jdbcTemplate.update(
+            "DELETE FROM ingestion_checkpoint WHERE file_hash = ?",
+            fileHash
+        );
+        jdbcTemplate.update(
+            "DELETE FROM embedding_checkpoint WHERE file_hash = ?",
+            fileHash
+        );
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to serialize checkpoint.", e);
+        }
+    }
+
+    private <T> T fromJson(String payload, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to read checkpoint.", e);
+        }
+    }
+
+    private static float[] parseVector(String vector) {
+        try {
+            return new PGvector(vector).toArray();
+        } catch (SQLException e) {
+            throw new RagException("Failed to parse checkpointed embedding.", e);
+        }
+    }
+}
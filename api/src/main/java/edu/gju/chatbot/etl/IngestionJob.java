@@ -0,0 +1,23 @@
+package edu.gju.chatbot.etl;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+public record IngestionJob(
+    UUID id,
+    String fileName,
+    IngestionJobStatus status,
+    int attempts,
+    Map<IngestionStage, StageProgress> stages,
+    String error,
+    Instant createdAt,
+    Instant startedAt,
+    Instant finishedAt
+) {
+    public record StageProgress(
+        IngestionJobStatus status,
+        Instant startedAt,
+        Long durationMs
+    ) {}
+}
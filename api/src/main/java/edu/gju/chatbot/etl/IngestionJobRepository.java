@@ -0,0 +1,383 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.exception.FileProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RequiredArgsConstructor
+@Repository
+public class IngestionJobRepository {
+
+    private static final TypeReference<
+        Map<IngestionStage, IngestionJob.StageProgress>
+    > STAGES_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Streams the upload into a Postgres large object, so neither this node
+     * nor the worker that later claims the job holds the whole file in heap.
+     */
+    public UUID enqueue(String fileName, InputStream content) {
+        return transactionTemplate.execute(_ -> {
+            Long oid = jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+                writeLargeObject(connection, content)
+            );
+
+            return jdbcTemplate.queryForObject(
+                "INSERT INTO ingestion_job (file_name, file_oid) VALUES (?, ?) RETURNING id",
+                UUID.class,
+                fileName,
+                oid
+            );
+        });
+    }
+
+    /**
+     * Atomically claims the oldest runnable job for this worker. Jobs held by
+     * a worker that stopped sending heartbeats are treated as runnable again.
+     * SKIP LOCKED lets workers on other nodes claim different rows
+     * concurrently instead of queueing behind the same one.
+     */
+    public Optional<ClaimedJob> claimNext(
+        String workerId,
+        Duration leaseTimeout,
+        int maxAttempts
+    ) {
+        List<ClaimedJob> claimed = jdbcTemplate.query(
+            """
+            UPDATE ingestion_job
+            SET status = 'RUNNING',
+                attempts = attempts + 1,
+                locked_by = ?,
+                heartbeat_at = now(),
+                started_at = now(),
+                error = NULL
+            WHERE id = (
+                SELECT id
+                FROM ingestion_job
+                WHERE attempts < ?
+                  AND (
+                    status = 'QUEUED'
+                    OR (status = 'RUNNING' AND heartbeat_at < now() - make_interval(secs => ?))
+                  )
+                ORDER BY created_at
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id, file_name, attempts, locked_by
+            """,
+            (rs, _) ->
+                new ClaimedJob(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("file_name"),
+                    rs.getInt("attempts"),
+                    rs.getString("locked_by")
+                ),
+            workerId,
+            maxAttempts,
+            leaseTimeout.toSeconds()
+        );
+
+        return claimed.stream().findFirst();
+    }
+
+    /**
+     * Fails the jobs whose worker stopped sending heartbeats during their
+     * last attempt, which {@link #claimNext} never picks up again, and
+     * unlinks their stored file.
+     */
+    public int failAbandoned(Duration leaseTimeout, int maxAttempts) {
+        return transactionTemplate.execute(_ -> {
+            List<ClaimedJob> abandoned = jdbcTemplate.query(
+                """
+                SELECT id, file_name, attempts, locked_by
+                FROM ingestion_job
+                WHERE status = 'RUNNING'
+                  AND attempts >= ?
+                  AND heartbeat_at < now() - make_interval(secs => ?)
+                FOR UPDATE SKIP LOCKED
+                """,
+                (rs, _) ->
+                    new ClaimedJob(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("file_name"),
+                        rs.getInt("attempts"),
+                        rs.getString("locked_by")
+                    ),
+                maxAttempts,
+                leaseTimeout.toSeconds()
+            );
+
+            for (ClaimedJob job : abandoned) {
+                fail(
+                    job.id(),
+                    job.lockedBy(),
+                    "Worker stopped responding on the last attempt.",
+                    false
+                );
+            }
+
+            return abandoned.size();
+        });
+    }
+
+    public Path copyContent(UUID jobId, Path target) {
+        return transactionTemplate.execute(_ -> {
+            Long oid = jdbcTemplate
+                .queryForList(
+                    "SELECT file_oid FROM ingestion_job WHERE id = ?",
+                    Long.class,
+                    jobId
+                )
+                .stream()
+                .findFirst()
+                .orElse(null);
+
+            if (oid == null) {
+                throw new FileProcessingException(
+                    "Ingestion job " + jobId + " has no file content."
+                );
+            }
+
+            return jdbcTemplate.execute((ConnectionCallback<Path>) connection ->
+                readLargeObject(connection, oid, target)
+            );
+        });
+    }
+
+    public void updateStages(
+        UUID jobId,
+        Map<IngestionStage, IngestionJob.StageProgress> stages
+    ) {
+        jdbcTemplate.update(
+            "UPDATE ingestion_job SET stages = ?::jsonb, heartbeat_at = now() WHERE id = ?",
+            writeStages(stages),
+            jobId
+        );
+    }
+
+    public void heartbeat(Collection<UUID> jobIds, String workerId) {
+        jdbcTemplate.batchUpdate(
+            "UPDATE ingestion_job SET heartbeat_at = now() WHERE id = ? AND locked_by = ?",
+            jobIds.stream().map(id -> new Object[] { id, workerId }).toList()
+        );
+    }
+
+    /**
+     * Marks the job completed if {@code workerId} still holds it. A worker
+     * whose lease expired and whose job was claimed again must not finish the
+     * newer attempt, so a job held by another worker is left untouched.
+     */
+    public void complete(UUID jobId, String workerId) {
+        transactionTemplate.executeWithoutResult(_ -> {
+            jdbcTemplate.queryForList(
+                "SELECT lo_unlink(file_oid) FROM ingestion_job WHERE id = ? AND locked_by = ? AND file_oid IS NOT NULL",
+                jobId,
+                workerId
+            );
+
+            jdbcTemplate.update(
+                """
+                UPDATE ingestion_job
+                SET status = 'COMPLETED',
+                    file_oid = NULL,
+                    locked_by = NULL,
+                    finished_at = now()
+                WHERE id = ? AND locked_by = ?
+                """,
+                jobId,
+                workerId
+            );
+        });
+    }
+
+    /**
+     * Fails the job, or queues it again if {@code retryable}, if
+     * {@code workerId} still holds it; see {@link #complete}.
+     */
+    public void fail(
+        UUID jobId,
+        String workerId,
+        String error,
+        boolean retryable
+    ) {
+        transactionTemplate.executeWithoutResult(_ -> {
+            if (!retryable) {
+                jdbcTemplate.queryForList(
+                    "SELECT lo_unlink(file_oid) FROM ingestion_job WHERE id = ? AND locked_by = ? AND file_oid IS NOT NULL",
+                    jobId,
+                    workerId
+                );
+            }
+
+            jdbcTemplate.update(
+                """
+                UPDATE ingestion_job
+                SET status = ?,
+                    error = ?,
+                    file_oid = CASE WHEN ? THEN file_oid END,
+                    locked_by = NULL,
+                    finished_at = CASE WHEN ? THEN NULL ELSE now() END
+                WHERE id = ? AND locked_by = ?
+                """,
+                retryable
+                    ? IngestionJobStatus.QUEUED.name()
+                    : IngestionJobStatus.FAILED.name(),
+                error,
+                retryable,
+                retryable,
+                jobId,
+                workerId
+            );
+        });
+    }
+
+    public Optional<IngestionJob> findById(UUID jobId) {
+        return jdbcTemplate
+            .query(
+                """
+                SELECT id, file_name, status, attempts, stages, error, created_at, started_at, finished_at
+                FROM ingestion_job
+                WHERE id = ?
+                """,
+                (rs, _) -> mapJob(rs),
+                jobId
+            )
+            .stream()
+            .findFirst();
+    }
+
+    private IngestionJob mapJob(ResultSet rs) throws SQLException {
+        return new IngestionJob(
+            rs.getObject("id", UUID.class),
+            rs.getString("file_name"),
+            IngestionJobStatus.valueOf(rs.getString("status")),
+            rs.getInt("attempts"),
+            readStages(rs.getString("stages")),
+            rs.getString("error"),
+            toInstant(rs.getObject("created_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("started_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("finished_at", OffsetDateTime.class))
+        );
+    }
+
+    private String writeStages(
+        Map<IngestionStage, IngestionJob.StageProgress> stages
+    ) {
+        try {
+            return objectMapper.writeValueAsString(stages);
+        } catch (JsonProcessingException e) {
+            throw new FileProcessingException(
+                "Failed to serialize ingestion job stages."
+            );
+        }
+    }
+
+    private Map<IngestionStage, IngestionJob.StageProgress> readStages(
+        String stages
+    ) {
+        try {
+            return objectMapper.readValue(stages, STAGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new FileProcessingException(
+                "Failed to parse ingestion job stages."
+            );
+        }
+    }
+
+    private static long writeLargeObject(
+        Connection connection,
+        InputStream content
+    ) throws SQLException {
+        LargeObjectManager largeObjects = connection
+            .unwrap(PGConnection.class)
+            .getLargeObjectAPI();
+        long oid = largeObjects.createLO(LargeObjectManager.READWRITE);
+
+        try (
+            LargeObject largeObject = largeObjects.open(
+                oid,
+                LargeObjectManager.WRITE
+            )
+        ) {
+            OutputStream out = largeObject.getOutputStream();
+            content.transferTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to store uploaded file.");
+        }
+
+        return oid;
+    }
+
+    private static Path readLargeObject(
+        Connection connection,
+        long oid,
+        Path target
+    ) throws SQLException {
+        LargeObjectManager largeObjects = connection
+            .unwrap(PGConnection.class)
+            .getLargeObjectAPI();
+
+        try (
+            LargeObject largeObject = largeObjects.open(
+                oid,
+                LargeObjectManager.READ
+            )
+        ) {
+            Files.copy(
+                largeObject.getInputStream(),
+                target,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (IOException e) {
+            throw new FileProcessingException(
+                "Failed to read stored file " + target.getFileName() + "."
+            );
+        }
+
+        return target;
+    }
+
+    private static Instant toInstant(OffsetDateTime timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    public record ClaimedJob(
+        UUID id,
+        String fileName,
+        int attempts,
+        String lockedBy
+    ) {}
+}
@@ -0,0 +1,108 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.FileProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+@RequiredArgsConstructor
+@Service
+public class IngestionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        IngestionJobService.class
+    );
+
+    private final IngestionJobRepository ingestionJobRepository;
+
+    private final EtlPipelineService etlPipelineService;
+
+    public IngestionJobSubmission submit(MultipartFile file) {
+        String fileName = StringUtils.getFilename(file.getOriginalFilename());
+        etlPipelineService.validateFileName(fileName);
+
+        try (InputStream content = file.getInputStream()) {
+            return enqueue(fileName, content);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read uploaded file.");
+        }
+    }
+
+    /**
+     * Queues every PDF in the upload, expanding zip archives into one job per
+     * contained PDF. The queued jobs then flow through the staged pipeline
+     * concurrently, so a batch finishes at the pace of the slowest stage.
+     */
+    public List<IngestionJobSubmission> submitAll(List<MultipartFile> files) {
+        List<IngestionJobSubmission> submissions = new ArrayList<>();
+
+        for (MultipartFile file : files) {
+            String fileName = StringUtils.getFilename(
+                file.getOriginalFilename()
+            );
+
+            if (fileName != null && fileName.toLowerCase().endsWith(".zip")) {
+                submissions.addAll(submitArchive(file));
+            } else {
+                submissions.add(submit(file));
+            }
+        }
+
+        return submissions;
+    }
+
+    public Optional<IngestionJob> getJob(UUID jobId) {
+        return ingestionJobRepository.findById(jobId);
+    }
+
+    private List<IngestionJobSubmission> submitArchive(MultipartFile archive) {
+        List<IngestionJobSubmission> submissions = new ArrayList<>();
+
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+
+            while ((entry = zip.getNextEntry()) != null) {
+                String fileName = StringUtils.getFilename(entry.getName());
+
+                if (
+                    entry.isDirectory() ||
+                    fileName == null ||
+                    !fileName.toLowerCase().endsWith(".pdf")
+                ) {
+                    log.info(
+                        "Skipping non-PDF archive entry {}.",
+                        entry.getName()
+                    );
+                    continue;
+                }
+
+                submissions.add(enqueue(fileName, zip));
+            }
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read uploaded archive.");
+        }
+
+        return submissions;
+    }
+
+    private IngestionJobSubmission enqueue(
+        String fileName,
+        InputStream content
+    ) {
+        UUID jobId = ingestionJobRepository.enqueue(fileName, content);
+        log.info("Queued ingestion job {} for {}.", jobId, fileName);
+
+        return new IngestionJobSubmission(jobId, fileName);
+    }
+}
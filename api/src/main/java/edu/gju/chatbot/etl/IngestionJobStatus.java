@@ -0,0 +1,8 @@
+package edu.gju.chatbot.etl;
+
+public enum IngestionJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+}
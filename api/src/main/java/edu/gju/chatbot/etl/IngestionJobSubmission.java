@@ -0,0 +1,5 @@
+package edu.gju.chatbot.etl;
+
+import java.util.UUID;
+
+public record IngestionJobSubmission(UUID jobId, String fileName) {}
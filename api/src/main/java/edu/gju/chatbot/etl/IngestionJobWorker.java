@@ -0,0 +1,214 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.config.etl.DirectoryImportProperties;
+import edu.gju.chatbot.config.etl.IngestionJobProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+@RequiredArgsConstructor
+@Component
+@ConditionalOnExpression(DirectoryImportProperties.NOT_IMPORTING)
+public class IngestionJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        IngestionJobWorker.class
+    );
+
+    private final IngestionJobRepository ingestionJobRepository;
+
+    private final EtlPipelineService etlPipelineService;
+
+    private final IngestionJobProperties properties;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String workerId = UUID.randomUUID().toString();
+
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor =
+        Executors.newVirtualThreadPerTaskExecutor();
+
+    @Scheduled(fixedDelayString = "${etl.ingestion-jobs.poll-interval:PT5S}")
+    public void poll() {
+        int abandoned = ingestionJobRepository.failAbandoned(
+            properties.getLeaseTimeout(),
+            properties.getMaxAttempts()
+        );
+
+        if (abandoned > 0) {
+            log.warn(
+                "Failed {} ingestion jobs abandoned on their last attempt.",
+                abandoned
+            );
+        }
+
+        // Jobs claimed during a bulk rebuild could not be written; they stay
+        // queued until it is swapped in.
+        if (!VectorStoreBulkLoader.tryLockShared(jdbcTemplate)) {
+            log.debug("Holding off ingestion jobs during a bulk rebuild.");
+            return;
+        }
+
+        while (inFlight.size() < properties.getWorkers()) {
+            Optional<IngestionJobRepository.ClaimedJob> claimed =
+                ingestionJobRepository.claimNext(
+                    workerId,
+                    properties.getLeaseTimeout(),
+                    properties.getMaxAttempts()
+                );
+
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            IngestionJobRepository.ClaimedJob job = claimed.get();
+            inFlight.add(job.id());
+            executor.submit(() -> run(job));
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${etl.ingestion-jobs.heartbeat-interval:PT1M}"
+    )
+    public void heartbeat() {
+        if (!inFlight.isEmpty()) {
+            ingestionJobRepository.heartbeat(Set.copyOf(inFlight), workerId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(IngestionJobRepository.ClaimedJob job) {
+        log.info(
+            "Running ingestion job {} for {} (attempt {}).",
+            job.id(),
+            job.fileName(),
+            job.attempts()
+        );
+
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("ingestion-job-");
+            Path file = ingestionJobRepository.copyContent(
+                job.id(),
+                workDir.resolve(job.fileName())
+            );
+
+            etlPipelineService.processFile(
+                new FileSystemResource(file),
+                new JobProgressListener(job.id())
+            );
+
+            ingestionJobRepository.complete(job.id(), workerId);
+            log.info("Ingestion job {} completed.", job.id());
+        } catch (Exception e) {
+            boolean retryable = job.attempts() < properties.getMaxAttempts();
+            log.error(
+                "Ingestion job {} failed (retryable: {}).",
+                job.id(),
+                retryable,
+                e
+            );
+            ingestionJobRepository.fail(
+                job.id(),
+                workerId,
+                e.getMessage(),
+                retryable
+            );
+        } finally {
+            inFlight.remove(job.id());
+            deleteQuietly(workDir);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}.", path, e);
+        }
+    }
+
+    private class JobProgressListener implements IngestionListener {
+
+        private final UUID jobId;
+
+        private final Map<IngestionStage, IngestionJob.StageProgress> stages =
+            new EnumMap<>(IngestionStage.class);
+
+        JobProgressListener(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void onStageStarted(IngestionStage stage) {
+            record(stage, IngestionJobStatus.RUNNING, Instant.now(), null);
+        }
+
+        @Override
+        public void onStageCompleted(IngestionStage stage, Duration duration) {
+            record(stage, IngestionJobStatus.COMPLETED, null, duration);
+        }
+
+        @Override
+        public void onStageFailed(
+            IngestionStage stage,
+            Duration duration,
+            Exception exception
+        ) {
+            record(stage, IngestionJobStatus.FAILED, null, duration);
+        }
+
+        private synchronized void record(
+            IngestionStage stage,
+            IngestionJobStatus status,
+            Instant startedAt,
+            Duration duration
+        ) {
+            IngestionJob.StageProgress previous = stages.get(stage);
+            Instant stageStartedAt = startedAt != null
+                ? startedAt
+                : previous != null ? previous.startedAt() : null;
+
+            stages.put(
+                stage,
+                new IngestionJob.StageProgress(
+                    status,
+                    stageStartedAt,
+                    duration != null ? duration.toMillis() : null
+                )
+            );
+
+            ingestionJobRepository.updateStages(jobId, Map.copyOf(stages));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.gju.chatbot.etl;
+
+import java.time.Duration;
+
+public interface IngestionListener {
+
+    IngestionListener NOOP = new IngestionListener() {};
+
+    default void onStageStarted(IngestionStage stage) {}
+
+    default void onStageCompleted(IngestionStage stage, Duration duration) {}
+
+    default void onStageFailed(
+        IngestionStage stage,
+        Duration duration,
+        Exception exception
+    ) {}
+
+    /**
+     * Called once the file's chunks have been written, with the number of
+     * chunks and the tokens they contain.
+     */
+    default void onChunksWritten(int chunks, long tokens) {}
+}
@@ -0,0 +1,9 @@
+package edu.gju.chatbot.etl;
+
+public enum IngestionStage {
+    OCR,
+    HIERARCHY_ENRICHMENT,
+    METADATA_ENRICHMENT,
+    SPLITTING,
+    EMBEDDING,
+}
@@ -0,0 +1,113 @@
+package edu.gju.chatbot.etl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class JdbcOcrResultCache implements OcrResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        JdbcOcrResultCache.class
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long maxSizeBytes;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public JdbcOcrResultCache(
+        JdbcTemplate jdbcTemplate,
+        long maxSizeBytes,
+        MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSizeBytes = maxSizeBytes;
+        this.hits = meterRegistry.counter("ocr.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter(
+            "ocr.cache.requests",
+            "result",
+            "miss"
+        );
+        this.evictions = meterRegistry.counter("ocr.cache.evictions");
+    }
+
+    @Override
+    public Optional<String> get(String contentHash) {
+        List<String> content = jdbcTemplate.queryForList(
+            """
+            UPDATE ocr_cache
+            SET last_accessed_at = now()
+            WHERE content_hash = ?
+            RETURNING content
+            """,
+            String.class,
+            contentHash
+        );
+
+        if (content.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        log.info("OCR cache hit for {}.", contentHash);
+
+        return Optional.of(content.get(0));
+    }
+
+    @Override
+    public void put(String contentHash, String markdown) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO ocr_cache (content_hash, content, size_bytes)
+            VALUES (?, ?, ?)
+            ON CONFLICT (content_hash) DO UPDATE
+            SET content = EXCLUDED.content,
+                size_bytes = EXCLUDED.size_bytes,
+                last_accessed_at = now()
+            """,
+            contentHash,
+            markdown,
+            markdown.getBytes(StandardCharsets.UTF_8).length
+        );
+
+        evictOverflow();
+    }
+
+    /**
+     * Keeps the most recently used entries that fit in the size budget and
+     * drops the rest.
+     */
+    private void evictOverflow() {
+        int evicted = jdbcTemplate.update(
+            """
+            DELETE FROM ocr_cache
+            WHERE content_hash IN (
+                SELECT content_hash
+                FROM (
+                    SELECT content_hash,
+                           SUM(size_bytes) OVER (ORDER BY last_accessed_at DESC, content_hash) AS retained_bytes
+                    FROM ocr_cache
+                ) ranked
+                WHERE retained_bytes > ?
+            )
+            """,
+            maxSizeBytes
+        );
+
+        if (evicted > 0) {
+            evictions.increment(evicted);
+            log.info("Evicted {} OCR cache entries.", evicted);
+        }
+    }
+}
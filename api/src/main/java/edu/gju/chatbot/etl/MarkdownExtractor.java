@@ -0,0 +1,15 @@
+package edu.gju.chatbot.etl;
+
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+
+/**
+ * Produces markdown for a PDF without the OCR service, or nothing when it
+ * cannot do so reliably and the file has to be scanned.
+ */
+public interface MarkdownExtractor {
+
+    MarkdownExtractor NONE = _ -> Optional.empty();
+
+    Optional<String> extract(Resource file);
+}
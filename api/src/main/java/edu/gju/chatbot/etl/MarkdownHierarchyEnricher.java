@@ -3,8 +3,12 @@ package edu.gju.chatbot.etl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -17,6 +21,8 @@ public class MarkdownHierarchyEnricher implements Function<Document, Document> {
         MarkdownHierarchyEnricher.class
     );
 
+    private static final Pattern HEADER_PREFIX = Pattern.compile("^#+\\s*");
+
     private static final String SYSTEM_PROMPT = """
         You are refining an OCR-scanned document within a RAG ETL pipeline that has been converted to markdown.
         The headers detected are only rough approximations and don't dictate the true hierarchy of the text.
@@ -93,10 +99,50 @@ public class MarkdownHierarchyEnricher implements Function<Document, Document> {
         Output only JSON, the key is the header ID (including the <> brackets), value is the header level.
             """;
 
+    private static final String SKELETON_NOTE = """
+        Only the header lines are shown. The line starting with "> " below a header is a short excerpt of the text under it, use it as context only.
+        """;
+
+    private static final String WINDOW_NOTE = """
+        This is part %d of a longer document's headers. The first headers may repeat the end of the previous part, level them as you would in the full document.
+        """;
+
+    /**
+     * {@code FULL} sends the whole markdown; {@code SKELETON} sends only the
+     * header lines with a short excerpt each, split into overlapping windows
+     * that are levelled in parallel when the document has many headers.
+     */
+    public enum Mode {
+        FULL,
+        SKELETON,
+    }
+
     private final ChatClient chatClient;
 
+    private final Mode mode;
+
+    private final int snippetLength;
+
+    private final int windowSize;
+
+    private final int windowOverlap;
+
     public MarkdownHierarchyEnricher(ChatClient chatClient) {
+        this(chatClient, Mode.FULL, 0, Integer.MAX_VALUE, 0);
+    }
+
+    public MarkdownHierarchyEnricher(
+        ChatClient chatClient,
+        Mode mode,
+        int snippetLength,
+        int windowSize,
+        int windowOverlap
+    ) {
         this.chatClient = chatClient;
+        this.mode = mode;
+        this.snippetLength = snippetLength;
+        this.windowSize = windowSize;
+        this.windowOverlap = windowOverlap;
     }
 
     public Document enrich(Document markdown) {
@@ -105,63 +151,197 @@ public class MarkdownHierarchyEnricher implements Function<Document, Document> {
 
     @Override
     public Document apply(Document document) {
-        List<String> linesWithHeaderIds = addHeaderIds(document.getText());
+        try (Session session = startSession()) {
+            return session.finish(document);
+        }
+    }
 
-        Map<String, Integer> correctedHeaders = chatClient
-            .prompt()
-            .user(u -> u.text(String.join("\n", linesWithHeaderIds)))
-            .system(s -> s.text(SYSTEM_PROMPT))
-            .call()
-            .entity(new ParameterizedTypeReference<Map<String, Integer>>() {});
+    /**
+     * Starts levelling a document whose markdown arrives in parts, such as
+     * while it is still being scanned. In skeleton mode every window whose
+     * headers have all arrived is sent off right away, so most of the LLM
+     * calls overlap with the scan.
+     */
+    public Session startSession() {
+        return new Session();
+    }
 
-        System.out.println(correctedHeaders.toString());
+    public final class Session implements AutoCloseable {
 
-        List<String> enrichedLines = new ArrayList<>();
-        for (String line : linesWithHeaderIds) {
-            if (!line.startsWith("<header-id-")) {
-                enrichedLines.add(line);
-                continue;
-            }
+        private final HeaderSkeleton.Builder streamed =
+            new HeaderSkeleton.Builder(snippetLength);
+
+        private final List<CompletableFuture<Map<String, Integer>>> dispatched =
+            new ArrayList<>();
 
-            int startHeaderIndex = line.indexOf(">") + 1;
-            String headerId = line.substring(0, startHeaderIndex);
-            Integer level = correctedHeaders.get(headerId);
+        private final ExecutorService executor =
+            Executors.newVirtualThreadPerTaskExecutor();
 
-            String text = line.substring(startHeaderIndex).stripLeading();
+        private Session() {}
 
-            if (level == null || level == -1) {
-                text = text.replaceFirst("^#+\\s*", "");
-                enrichedLines.add(text);
-            } else {
-                text = text.replaceFirst("^#+\\s*", "");
-                enrichedLines.add("#".repeat(level) + " " + text);
+        /**
+         * Only the new part is parsed; the headers of earlier parts are kept
+         * in {@link #streamed}, not their markdown.
+         */
+        public synchronized void append(String part) {
+            if (mode == Mode.SKELETON) {
+                streamed.append(part);
+                dispatchCompleteWindows(streamed.completeHeaders());
             }
         }
 
-        log.info(String.join("\n", enrichedLines));
+        /**
+         * Levels the headers of the complete document, reusing the windows
+         * already sent for the parts appended before.
+         */
+        public synchronized Document finish(Document document) {
+            String text = document.getText();
 
-        return new Document(
-            String.join("\n", enrichedLines),
-            document.getMetadata()
-        );
-    }
+            Map<String, Integer> correctedHeaders = mode == Mode.FULL
+                ? levelHeaders(addHeaderIds(text))
+                : levelSkeleton(HeaderSkeleton.of(text, snippetLength));
 
-    private static List<String> addHeaderIds(String text) {
-        AtomicInteger counter = new AtomicInteger(1);
-        String[] lines = text.split("\n", -1);
+            log.debug("Corrected header levels: {}", correctedHeaders);
+
+            String enrichedMarkdown = applyHeaderLevels(text, correctedHeaders);
+
+            log.debug(enrichedMarkdown);
+
+            return new Document(enrichedMarkdown, document.getMetadata());
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+        /**
+         * The last header's excerpt may still grow with the next part, so
+         * only windows of the headers before it are complete.
+         */
+        private void dispatchCompleteWindows(
+            List<HeaderSkeleton.Header> headers
+        ) {
+            int step = windowSize - windowOverlap;
+
+            while (true) {
+                int start = dispatched.size() * step;
+                int end = start + windowSize;
+
+                if (end > headers.size()) {
+                    return;
+                }
 
-        List<String> result = new ArrayList<>();
+                dispatch(headers.subList(start, end));
+            }
+        }
+
+        private Map<String, Integer> levelSkeleton(HeaderSkeleton skeleton) {
+            if (skeleton.getHeaders().isEmpty()) {
+                return Map.of();
+            }
 
-        for (String line : lines) {
-            if (line.startsWith("#")) {
-                result.add(
-                    "<header-id-" + counter.getAndIncrement() + ">" + line
+            List<List<HeaderSkeleton.Header>> windows = skeleton.windows(
+                windowSize,
+                windowOverlap
+            );
+
+            if (windows.size() == 1) {
+                return levelHeaders(
+                    SKELETON_NOTE + "\n" + HeaderSkeleton.format(windows.get(0))
                 );
-            } else {
-                result.add(line);
             }
+
+            log.debug(
+                "Levelling {} headers in {} windows, {} sent while scanning.",
+                skeleton.getHeaders().size(),
+                windows.size(),
+                dispatched.size()
+            );
+
+            for (int i = dispatched.size(); i < windows.size(); i++) {
+                dispatch(windows.get(i));
+            }
+
+            return HeaderSkeleton.stitch(
+                windows,
+                dispatched.stream().map(CompletableFuture::join).toList()
+            );
+        }
+
+        private void dispatch(List<HeaderSkeleton.Header> window) {
+            String prompt =
+                SKELETON_NOTE +
+                WINDOW_NOTE.formatted(dispatched.size() + 1) +
+                "\n" +
+                HeaderSkeleton.format(window);
+
+            dispatched.add(
+                CompletableFuture.supplyAsync(() -> levelHeaders(prompt), executor)
+            );
         }
+    }
+
+    private Map<String, Integer> levelHeaders(String headers) {
+        return chatClient
+            .prompt()
+            .user(u -> u.text(headers))
+            .system(s -> s.text(SYSTEM_PROMPT))
+            .call()
+            .entity(new ParameterizedTypeReference<Map<String, Integer>>() {});
+    }
+
+    /**
+     * Header IDs are assigned in line order, so walking the same markdown
+     * again in {@link #applyHeaderLevels} yields the same IDs without keeping
+     * an ID-tagged copy of every line around.
+     */
+    private static String addHeaderIds(String text) {
+        AtomicInteger counter = new AtomicInteger(1);
+        StringBuilder result = new StringBuilder(text.length() + 1024);
+
+        text
+            .lines()
+            .forEach(line -> {
+                if (line.startsWith("#")) {
+                    result
+                        .append("<header-id-")
+                        .append(counter.getAndIncrement())
+                        .append('>');
+                }
+
+                result.append(line).append('\n');
+            });
+
+        return result.toString();
+    }
+
+    private static String applyHeaderLevels(
+        String text,
+        Map<String, Integer> correctedHeaders
+    ) {
+        AtomicInteger counter = new AtomicInteger(1);
+        StringBuilder result = new StringBuilder(text.length());
+
+        text
+            .lines()
+            .forEach(line -> {
+                if (!line.startsWith("#")) {
+                    result.append(line).append('\n');
+                    return;
+                }
+
+                String headerId = "<header-id-" + counter.getAndIncrement() + ">";
+                Integer level = correctedHeaders.get(headerId);
+                String headerText = HEADER_PREFIX.matcher(line).replaceFirst("");
+
+                if (level != null && level != -1) {
+                    result.append("#".repeat(level)).append(' ');
+                }
+
+                result.append(headerText).append('\n');
+            });
 
-        return result;
+        return result.toString();
     }
 }
@@ -2,23 +2,28 @@ package edu.gju.chatbot.etl;
 
 import edu.gju.chatbot.metadata.MetadataKeys;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Function;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.transformer.splitter.TextSplitter;
 
+/**
+ * Splits markdown into chunks per header section and records the breadcrumbs
+ * and token count of each chunk. The text is scanned by offset, so each
+ * section is copied out of the document once rather than line by line.
+ */
 public class MarkdownTextSplitter
     implements Function<Document, List<Document>>
 {
 
     private static final int MAX_HEADER_DEPTH = 6;
 
-    private final TextSplitter textSplitter;
+    private final TokenChunker tokenChunker;
 
-    public MarkdownTextSplitter(TextSplitter textSplitter) {
-        this.textSplitter = textSplitter;
+    public MarkdownTextSplitter(TokenChunker tokenChunker) {
+        this.tokenChunker = tokenChunker;
     }
 
     public List<Document> split(Document markdown) {
@@ -27,70 +32,99 @@ public class MarkdownTextSplitter
 
     @Override
     public List<Document> apply(Document document) {
-        String[] lines = document.getText().split("\n");
+        String text = document.getText();
         String[] headers = new String[MAX_HEADER_DEPTH];
         Map<String, Object> baseMetadata = document.getMetadata();
-        StringBuilder sectionContent = new StringBuilder();
         List<Document> chunks = new ArrayList<>();
         UUID currentSectionId = UUID.randomUUID();
+        int sectionStart = 0;
+        int lineStart = 0;
 
-        for (String line : lines) {
-            Header header = parseHeader(line);
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            int nextLine = lineEnd == -1 ? text.length() : lineEnd + 1;
 
-            if (header != null) {
-                List<Document> sectionChunks = textSplitter.split(
-                    new Document(sectionContent.toString(), baseMetadata)
-                );
-
-                for (Document chunk : sectionChunks) {
-                    flushChunk(chunks, chunk, headers, currentSectionId);
-                }
+            if (lineEnd == -1) {
+                lineEnd = text.length();
+            }
 
-                int headerIndex = header.level - 1;
-                int currentTopHeaderIndex = 0;
+            Header header = parseHeader(text, lineStart, lineEnd);
 
-                for (int i = 0; i < MAX_HEADER_DEPTH; i++) {
-                    if (
-                        headers[i] == null ||
-                        headers[i].isEmpty() ||
-                        headers[i].isBlank()
-                    ) {
-                        continue;
-                    }
+            if (header == null) {
+                lineStart = nextLine;
+                continue;
+            }
 
-                    currentTopHeaderIndex = i;
-                    break;
+            flushSection(
+                chunks,
+                text.substring(sectionStart, lineStart),
+                baseMetadata,
+                headers,
+                currentSectionId
+            );
+
+            int headerIndex = header.level - 1;
+            int currentTopHeaderIndex = 0;
+
+            for (int i = 0; i < MAX_HEADER_DEPTH; i++) {
+                if (
+                    headers[i] == null ||
+                    headers[i].isEmpty() ||
+                    headers[i].isBlank()
+                ) {
+                    continue;
                 }
 
-                headers[headerIndex] = header.text;
+                currentTopHeaderIndex = i;
+                break;
+            }
 
-                for (int i = headerIndex + 1; i < MAX_HEADER_DEPTH; i++) {
-                    headers[i] = "";
-                }
+            headers[headerIndex] = header.text;
 
-                if (headerIndex <= currentTopHeaderIndex) {
-                    currentSectionId = UUID.randomUUID();
-                }
+            for (int i = headerIndex + 1; i < MAX_HEADER_DEPTH; i++) {
+                headers[i] = "";
+            }
 
-                sectionContent.setLength(0);
-                continue;
+            if (headerIndex <= currentTopHeaderIndex) {
+                currentSectionId = UUID.randomUUID();
             }
 
-            sectionContent.append(line).append('\n');
+            lineStart = nextLine;
+            sectionStart = nextLine;
         }
 
         // flush last section
-        List<Document> sectionChunks = textSplitter.split(
-            new Document(sectionContent.toString(), baseMetadata)
+        flushSection(
+            chunks,
+            text.substring(sectionStart),
+            baseMetadata,
+            headers,
+            currentSectionId
         );
 
-        for (Document chunk : sectionChunks) {
-            flushChunk(chunks, chunk, headers, currentSectionId);
-        }
-
         return chunks;
     }
 
+    private void flushSection(
+        List<Document> chunks,
+        String sectionContent,
+        Map<String, Object> baseMetadata,
+        String[] headers,
+        UUID sectionId
+    ) {
+        for (TokenChunker.Chunk chunk : tokenChunker.chunk(sectionContent)) {
+            Map<String, Object> metadata = new HashMap<>(baseMetadata);
+            metadata.put(MetadataKeys.TOKEN_COUNT, chunk.tokenCount());
+
+            flushChunk(
+                chunks,
+                new Document(chunk.text(), metadata),
+                headers,
+                sectionId
+            );
+        }
+    }
+
     private void flushChunk(
         List<Document> chunks,
         Document chunk,
@@ -128,22 +162,24 @@ public class MarkdownTextSplitter
         return breadcrumbs.toString();
     }
 
-    private Header parseHeader(String line) {
+    private Header parseHeader(String text, int start, int end) {
         int level = 0;
 
-        while (level < line.length() && line.charAt(level) == '#') {
+        while (start + level < end && text.charAt(start + level) == '#') {
             level++;
         }
 
         if (level == 0 || level > MAX_HEADER_DEPTH) return null;
 
-        if (line.length() <= level || line.charAt(level) != ' ') return null;
+        if (end <= start + level || text.charAt(start + level) != ' ') {
+            return null;
+        }
 
-        String text = line.substring(level + 1).trim();
+        String headerText = text.substring(start + level + 1, end).trim();
 
-        if (text.isEmpty()) return null;
+        if (headerText.isEmpty()) return null;
 
-        return new Header(level, text);
+        return new Header(level, headerText);
     }
 
     private String extractSectionName(String[] headers) {
@@ -0,0 +1,183 @@
+package edu.gju.chatbot.etl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Computes MinHash signatures over word shingles and folds them into LSH band
+ * keys. Two texts with Jaccard similarity {@code s} share any single band
+ * with probability {@code s^rowsPerBand}, so the fraction of shared bands is
+ * itself an estimate of their similarity and no signature needs storing.
+ * <p>
+ * Hash permutations are drawn from a fixed seed, so band keys stay comparable
+ * across restarts and between instances.
+ */
+public final class MinHasher {
+
+    private static final long SEED = 0x6E69627261734CL;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int bands;
+
+    private final int rowsPerBand;
+
+    private final int shingleSize;
+
+    private final long[] a;
+
+    private final long[] b;
+
+    public MinHasher(int bands, int rowsPerBand, int shingleSize) {
+        if (bands < 1 || rowsPerBand < 1 || shingleSize < 1) {
+            throw new IllegalArgumentException(
+                "bands, rowsPerBand and shingleSize must be positive."
+            );
+        }
+
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+        this.shingleSize = shingleSize;
+
+        int hashes = bands * rowsPerBand;
+        Random random = new Random(SEED);
+
+        this.a = new long[hashes];
+        this.b = new long[hashes];
+
+        for (int i = 0; i < hashes; i++) {
+            a[i] = random.nextLong() | 1;
+            b[i] = random.nextLong();
+        }
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRowsPerBand() {
+        return rowsPerBand;
+    }
+
+    /**
+     * Returns the number of words {@code text} normalizes to.
+     */
+    public static int wordCount(String text) {
+        return words(text).length;
+    }
+
+    /**
+     * Returns one key per band, or an empty list when the text is shorter
+     * than a single shingle.
+     */
+    public List<String> bandKeys(String text) {
+        long[] signature = signature(text);
+
+        if (signature.length == 0) {
+            return List.of();
+        }
+
+        List<String> keys = new ArrayList<>(bands);
+
+        for (int band = 0; band < bands; band++) {
+            long hash = mix(band + 1);
+
+            for (int row = 0; row < rowsPerBand; row++) {
+                hash = mix(hash ^ signature[band * rowsPerBand + row]);
+            }
+
+            keys.add(Long.toHexString(hash));
+        }
+
+        return keys;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two texts from the fraction of band
+     * keys they share.
+     */
+    public double estimateSimilarity(int sharedBands) {
+        return Math.pow((double) sharedBands / bands, 1.0 / rowsPerBand);
+    }
+
+    /**
+     * Returns the fewest shared bands at which two texts are estimated to be
+     * at least {@code similarity} alike.
+     */
+    public int minSharedBands(double similarity) {
+        return (int) Math.ceil(bands * Math.pow(similarity, rowsPerBand));
+    }
+
+    long[] signature(String text) {
+        Set<Long> shingles = shingles(text);
+
+        if (shingles.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] signature = new long[a.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        for (long shingle : shingles) {
+            for (int i = 0; i < signature.length; i++) {
+                long permuted = permute(i, shingle);
+
+                if (permuted < signature[i]) {
+                    signature[i] = permuted;
+                }
+            }
+        }
+
+        return signature;
+    }
+
+    private Set<Long> shingles(String text) {
+        String[] words = words(text);
+
+        if (words.length < shingleSize) {
+            return Set.of();
+        }
+
+        Set<Long> shingles = new HashSet<>();
+
+        for (int i = 0; i + shingleSize <= words.length; i++) {
+            long hash = 0;
+
+            for (int j = i; j < i + shingleSize; j++) {
+                hash = mix(hash ^ words[j].hashCode());
+            }
+
+            shingles.add(hash);
+        }
+
+        return shingles;
+    }
+
+    private long permute(int i, long x) {
+        return mix(x * a[i] + b[i]);
+    }
+
+    private static String[] words(String text) {
+        String normalized = NON_WORD
+            .matcher(text.toLowerCase(Locale.ROOT))
+            .replaceAll(" ")
+            .strip();
+
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,358 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Finds chunks that are near-duplicates of canonical rows already in the
+ * vector store, such as the university requirements and admission rules that
+ * every study plan repeats. A duplicate is stored with a
+ * {@code canonical_id} pointing at the row that carries the embedding and
+ * with no embedding of its own, so it is neither embedded nor indexed in
+ * HNSW but can still be matched through its own metadata at search time.
+ * <p>
+ * Chunks are fingerprinted with {@link MinHasher} band keys stored under
+ * {@code lsh_bands}; candidates are canonical rows of other files sharing at
+ * least one band, and the candidate sharing the most bands wins if that
+ * count puts the estimated similarity over the threshold.
+ */
+public class NearDuplicateDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        NearDuplicateDetector.class
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MinHasher minHasher;
+
+    private final double similarityThreshold;
+
+    private final int minWords;
+
+    private final boolean enabled;
+
+    public NearDuplicateDetector(
+        JdbcTemplate jdbcTemplate,
+        MinHasher minHasher,
+        double similarityThreshold,
+        int minWords,
+        boolean enabled
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minHasher = minHasher;
+        this.similarityThreshold = similarityThreshold;
+        this.minWords = minWords;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Tags every chunk long enough to fingerprint with its band keys. Short
+     * chunks are left untagged; a table row or a one-line heading is too
+     * short for shingle overlap to mean the same content.
+     */
+    public void fingerprint(List<Document> chunks) {
+        if (!enabled) {
+            return;
+        }
+
+        for (Document chunk : chunks) {
+            if (MinHasher.wordCount(chunk.getText()) < minWords) {
+                continue;
+            }
+
+            List<String> bands = minHasher.bandKeys(chunk.getText());
+
+            if (!bands.isEmpty()) {
+                chunk.getMetadata().put(MetadataKeys.LSH_BANDS, bands);
+            }
+        }
+    }
+
+    /**
+     * Fingerprints the chunks of {@code fileName} and returns, by chunk id,
+     * the id of the canonical row each near-duplicate should point at. The
+     * returned chunks are tagged with {@code canonical_id}. Rows of the same
+     * file are never candidates, since they are about to be replaced.
+     */
+    public Map<String, String> findCanonicals(
+        List<Document> chunks,
+        String fileName
+    ) {
+        fingerprint(chunks);
+
+        Map<String, String> canonicalIds = new HashMap<>();
+
+        if (!enabled) {
+            return canonicalIds;
+        }
+
+        int minSharedBands = minHasher.minSharedBands(similarityThreshold);
+        Map<String, Candidate> candidates = findCandidates(chunks, fileName);
+
+        for (Document chunk : chunks) {
+            Candidate candidate = candidates.get(chunk.getId());
+
+            if (candidate != null && candidate.sharedBands() >= minSharedBands) {
+                canonicalIds.put(chunk.getId(), candidate.id());
+                chunk.getMetadata().put(MetadataKeys.CANONICAL_ID, candidate.id());
+            }
+        }
+
+        if (!canonicalIds.isEmpty()) {
+            log.info(
+                "{} of {} chunks of {} are near-duplicates of stored chunks.",
+                canonicalIds.size(),
+                chunks.size(),
+                fileName
+            );
+        }
+
+        return canonicalIds;
+    }
+
+    /**
+     * Locks the given canonical rows against deletion until the end of the
+     * transaction and returns the ids of those that still exist. A canonical
+     * found by {@link #findCanonicals} may have been deleted by a concurrent
+     * write of its own file since; duplicates of it must be embedded instead.
+     */
+    public Set<String> lockCanonicals(Collection<String> canonicalIds) {
+        if (canonicalIds.isEmpty()) {
+            return Set.of();
+        }
+
+        return new HashSet<>(
+            jdbcTemplate.query(
+                """
+                SELECT id::text AS id
+                FROM vector_store
+                WHERE id = ANY (?::uuid[])
+                  AND embedding IS NOT NULL
+                FOR SHARE
+                """,
+                ps ->
+                    ps.setArray(
+                        1,
+                        ps
+                            .getConnection()
+                            .createArrayOf(
+                                "text",
+                                canonicalIds.stream().distinct().toArray()
+                            )
+                    ),
+                (rs, _) -> rs.getString("id")
+            )
+        );
+    }
+
+    /**
+     * Hands the embeddings of {@code fileName}'s canonical rows over to one of
+     * their duplicates in another file before those rows are deleted, and
+     * points the remaining duplicates at the new canonical. Must run in the
+     * same transaction as the delete.
+     * <p>
+     * The canonical rows are locked first, so the duplicates of a concurrent
+     * writer holding them through {@link #lockCanonicals} are committed, and
+     * promoted here, before the rows are deleted.
+     */
+    public void reassignDuplicatesOf(String fileName) {
+        jdbcTemplate.query(
+            """
+            SELECT id
+            FROM vector_store
+            WHERE file_name = ?
+              AND embedding IS NOT NULL
+            FOR UPDATE
+            """,
+            _ -> {},
+            fileName
+        );
+
+        List<String[]> heirs = jdbcTemplate.query(
+            """
+            SELECT DISTINCT ON (d.metadata ->> 'canonical_id')
+                d.metadata ->> 'canonical_id' AS canonical_id,
+                d.id::text AS heir_id
+            FROM vector_store d
+            JOIN vector_store c ON c.id::text = d.metadata ->> 'canonical_id'
+            WHERE c.file_name = ?
+              AND d.file_name <> ?
+            ORDER BY d.metadata ->> 'canonical_id', d.id
+            """,
+            (rs, _) ->
+                new String[] {
+                    rs.getString("canonical_id"),
+                    rs.getString("heir_id"),
+                },
+            fileName,
+            fileName
+        );
+
+        if (heirs.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+            """
+            UPDATE vector_store h
+            SET embedding = c.embedding,
+                metadata = h.metadata - 'canonical_id'
+            FROM vector_store c
+            WHERE c.id = ?::uuid AND h.id = ?::uuid
+            """,
+            heirs.stream().map(h -> new Object[] { h[0], h[1] }).toList()
+        );
+
+        jdbcTemplate.batchUpdate(
+            """
+            UPDATE vector_store
+            SET metadata = jsonb_set(metadata, '{canonical_id}', to_jsonb(?::text))
+            WHERE metadata ->> 'canonical_id' = ?
+            """,
+            heirs.stream().map(h -> new Object[] { h[1], h[0] }).toList()
+        );
+
+        log.info(
+            "Promoted {} duplicates to canonical before replacing {}.",
+            heirs.size(),
+            fileName
+        );
+    }
+
+    /**
+     * Links the near-duplicates among the fingerprinted rows of
+     * {@code table} to a canonical row of another file, in one statement,
+     * for loads that fill a whole table before it is indexed. Of two rows
+     * that match, the one with the lower id is the canonical. Only rows
+     * matching no lower id are canonical, so a duplicate never points at
+     * another duplicate. A row whose matches are all duplicates themselves
+     * keeps its embedding. Returns the number of rows linked.
+     */
+    public int linkDuplicates(String table) {
+        if (!enabled) {
+            return 0;
+        }
+
+        int linked = jdbcTemplate.update(
+            """
+            WITH bands AS (
+                SELECT t.id, t.file_name, band
+                FROM %1$s t,
+                    jsonb_array_elements_text(t.metadata -> 'lsh_bands') band
+            ),
+            matches AS (
+                SELECT d.id AS duplicate_id,
+                    c.id AS canonical_id,
+                    count(DISTINCT d.band) AS shared_bands
+                FROM bands d
+                JOIN bands c
+                  ON c.band = d.band
+                 AND c.id < d.id
+                 AND c.file_name <> d.file_name
+                GROUP BY d.id, c.id
+                HAVING count(DISTINCT d.band) >= ?
+            ),
+            links AS (
+                SELECT DISTINCT ON (m.duplicate_id) m.duplicate_id, m.canonical_id
+                FROM matches m
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM matches n WHERE n.duplicate_id = m.canonical_id
+                )
+                ORDER BY m.duplicate_id, m.shared_bands DESC, m.canonical_id
+            )
+            UPDATE %1$s t
+            SET metadata = jsonb_set(t.metadata, '{canonical_id}', to_jsonb(l.canonical_id::text)),
+                embedding = NULL
+            FROM links l
+            WHERE t.id = l.duplicate_id
+            """.formatted(table),
+            minHasher.minSharedBands(similarityThreshold)
+        );
+
+        log.info("Linked {} near-duplicates in {}.", linked, table);
+
+        return linked;
+    }
+
+    /**
+     * Looks up, in one query for all chunks, the canonical row of another
+     * file sharing the most bands with each fingerprinted chunk, keyed by
+     * chunk id. Every (chunk, band) pair is matched against the band index.
+     */
+    private Map<String, Candidate> findCandidates(
+        List<Document> chunks,
+        String fileName
+    ) {
+        List<String> chunkIds = new ArrayList<>();
+        List<String> bandKeys = new ArrayList<>();
+
+        for (Document chunk : chunks) {
+            @SuppressWarnings("unchecked")
+            List<String> bands = (List<String>) chunk
+                .getMetadata()
+                .get(MetadataKeys.LSH_BANDS);
+
+            if (bands == null) {
+                continue;
+            }
+
+            for (String band : bands) {
+                chunkIds.add(chunk.getId());
+                bandKeys.add(band);
+            }
+        }
+
+        Map<String, Candidate> candidates = new HashMap<>();
+
+        if (bandKeys.isEmpty()) {
+            return candidates;
+        }
+
+        jdbcTemplate.query(
+            """
+            SELECT DISTINCT ON (b.chunk_id)
+                b.chunk_id,
+                v.id::text AS id,
+                count(DISTINCT b.band) AS shared_bands
+            FROM unnest(?::text[], ?::text[]) AS b(chunk_id, band)
+            JOIN vector_store v ON (v.metadata -> 'lsh_bands') ?? b.band
+            WHERE v.embedding IS NOT NULL
+              AND v.file_name <> ?
+            GROUP BY b.chunk_id, v.id
+            ORDER BY b.chunk_id, shared_bands DESC
+            """,
+            ps -> {
+                ps.setArray(
+                    1,
+                    ps.getConnection().createArrayOf("text", chunkIds.toArray())
+                );
+                ps.setArray(
+                    2,
+                    ps.getConnection().createArrayOf("text", bandKeys.toArray())
+                );
+                ps.setString(3, fileName);
+            },
+            rs -> {
+                candidates.put(
+                    rs.getString("chunk_id"),
+                    new Candidate(rs.getString("id"), rs.getInt("shared_bands"))
+                );
+            }
+        );
+
+        return candidates;
+    }
+
+    private record Candidate(String id, int sharedBands) {}
+}
@@ -0,0 +1,76 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.ScannerUnavailableException;
+import java.time.Duration;
+
+/**
+ * Stops sending scans to the OCR service after a run of consecutive
+ * failures. Once {@code openDuration} has passed a single trial request is
+ * let through; its outcome closes the breaker or opens it again.
+ */
+public class OcrCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN,
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    private boolean trialInFlight;
+
+    public OcrCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Throws while the breaker is open, or while another caller holds the
+     * half-open trial.
+     */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new ScannerUnavailableException(
+                "OCR scanner is unavailable, not sending further scans for now."
+            );
+        }
+
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,269 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.exception.FileProcessingException;
+import edu.gju.chatbot.exception.RagException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.core.io.Resource;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Sends scan requests to the OCR service behind a bulkhead that caps the
+ * requests in flight, a read timeout that grows with the file size, and a
+ * circuit breaker that fails fast while the service keeps failing. Failed
+ * requests are retried with jittered exponential backoff.
+ */
+public class OcrClient {
+
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private static final String STREAM_PATH = "/stream/";
+
+    private static final ResponseErrorHandler ERROR_HANDLER =
+        new DefaultResponseErrorHandler();
+
+    private final RestClient restClient;
+
+    private final HttpClient httpClient;
+
+    private final RetryTemplate retryTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final OcrCircuitBreaker circuitBreaker;
+
+    private final Semaphore bulkhead;
+
+    private final int maxInFlight;
+
+    private final Duration baseTimeout;
+
+    private final Duration timeoutPerMegabyte;
+
+    private final Duration maxTimeout;
+
+    /**
+     * Read timeouts are set on the request factory, so there is one client
+     * per timeout, rounded up to the minute to keep the set small.
+     */
+    private final Map<Duration, RestClient> clientsByTimeout =
+        new ConcurrentHashMap<>();
+
+    public OcrClient(
+        RestClient restClient,
+        HttpClient httpClient,
+        RetryTemplate retryTemplate,
+        ObjectMapper objectMapper,
+        OcrCircuitBreaker circuitBreaker,
+        MeterRegistry meterRegistry,
+        int maxInFlight,
+        Duration baseTimeout,
+        Duration timeoutPerMegabyte,
+        Duration maxTimeout
+    ) {
+        this.restClient = restClient;
+        this.httpClient = httpClient;
+        this.retryTemplate = retryTemplate;
+        this.objectMapper = objectMapper;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxInFlight, true);
+        this.maxInFlight = maxInFlight;
+        this.baseTimeout = baseTimeout;
+        this.timeoutPerMegabyte = timeoutPerMegabyte;
+        this.maxTimeout = maxTimeout;
+
+        Gauge.builder("ocr.client.in_flight", this, c ->
+            c.maxInFlight - c.bulkhead.availablePermits()
+        )
+            .description("Scan requests currently sent to the OCR service")
+            .register(meterRegistry);
+        Gauge.builder(
+            "ocr.client.queue_depth",
+            bulkhead,
+            Semaphore::getQueueLength
+        )
+            .description("Scan requests waiting for a free OCR slot")
+            .register(meterRegistry);
+        Gauge.builder("ocr.client.circuit_state", circuitBreaker, b ->
+            b.getState().ordinal()
+        )
+            .description("OCR circuit breaker state: 0 closed, 1 half-open, 2 open")
+            .register(meterRegistry);
+    }
+
+    public String scan(Resource file) {
+        return call(file, client ->
+            client
+                .post()
+                .body(parts(file))
+                .retrieve()
+                .body(OcrScannerResponse.class)
+                .content()
+        );
+    }
+
+    /**
+     * Scans the file through the streaming endpoint, handing the markdown of
+     * each part to {@code onPart} in page order as soon as it arrives. A retry
+     * after a failure mid-stream skips the parts already handed over.
+     */
+    public void scanStream(
+        Resource file,
+        int pagesPerPart,
+        Consumer<String> onPart
+    ) {
+        AtomicInteger delivered = new AtomicInteger();
+
+        call(file, client ->
+            client
+                .post()
+                .uri(uri ->
+                    uri
+                        .path(STREAM_PATH)
+                        .queryParam("pages_per_part", pagesPerPart)
+                        .build()
+                )
+                .body(parts(file))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        ERROR_HANDLER.handleError(
+                            request.getURI(),
+                            request.getMethod(),
+                            response
+                        );
+                    }
+
+                    readParts(response.getBody(), delivered, onPart);
+
+                    return null;
+                })
+        );
+    }
+
+    private void readParts(
+        InputStream body,
+        AtomicInteger delivered,
+        Consumer<String> onPart
+    ) throws IOException {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(body, StandardCharsets.UTF_8)
+        );
+        int index = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (index++ < delivered.get()) {
+                continue;
+            }
+
+            onPart.accept(
+                objectMapper.readValue(line, OcrScannerResponse.class).content()
+            );
+            delivered.incrementAndGet();
+        }
+    }
+
+    private <T> T call(Resource file, Function<RestClient, T> request) {
+        RestClient client = clientsByTimeout.computeIfAbsent(
+            timeoutFor(file),
+            this::clientWithTimeout
+        );
+
+        return retryTemplate.execute(_ -> {
+            // Wait for the bulkhead before taking the breaker's permission,
+            // so an interrupted wait cannot strand the half-open trial.
+            try {
+                bulkhead.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RagException("Interrupted while waiting to scan.", e);
+            }
+
+            try {
+                circuitBreaker.acquirePermission();
+            } catch (RuntimeException e) {
+                bulkhead.release();
+                throw e;
+            }
+
+            try {
+                T result = request.apply(client);
+                circuitBreaker.recordSuccess();
+
+                return result;
+            } catch (HttpClientErrorException e) {
+                // The service answered; the request itself was rejected.
+                circuitBreaker.recordSuccess();
+                throw e;
+            } catch (RuntimeException e) {
+                circuitBreaker.recordFailure();
+                throw e;
+            } finally {
+                bulkhead.release();
+            }
+        });
+    }
+
+    private static MultiValueMap<String, Object> parts(Resource file) {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        parts.add("file", file);
+
+        return parts;
+    }
+
+    private Duration timeoutFor(Resource file) {
+        long bytes;
+        try {
+            bytes = file.contentLength();
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to read file size.");
+        }
+
+        Duration timeout = baseTimeout.plus(
+            timeoutPerMegabyte.multipliedBy(
+                Math.ceilDiv(bytes, BYTES_PER_MEGABYTE)
+            )
+        );
+
+        if (timeout.compareTo(maxTimeout) > 0) {
+            return maxTimeout;
+        }
+
+        return Duration.ofMinutes(Math.ceilDiv(timeout.toSeconds(), 60));
+    }
+
+    private RestClient clientWithTimeout(Duration timeout) {
+        JdkClientHttpRequestFactory requestFactory =
+            new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(timeout);
+
+        return restClient.mutate().requestFactory(requestFactory).build();
+    }
+
+    private record OcrScannerResponse(String content) {}
+}
@@ -0,0 +1,24 @@
+package edu.gju.chatbot.etl;
+
+import java.util.Optional;
+
+/**
+ * Content-addressed store of OCR markdown, keyed by the SHA-256 of the
+ * scanned file, so re-ingesting an unchanged PDF skips the OCR service.
+ */
+public interface OcrResultCache {
+
+    OcrResultCache NOOP = new OcrResultCache() {
+        @Override
+        public Optional<String> get(String contentHash) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void put(String contentHash, String markdown) {}
+    };
+
+    Optional<String> get(String contentHash);
+
+    void put(String contentHash, String markdown);
+}
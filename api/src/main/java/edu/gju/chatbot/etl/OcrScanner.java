@@ -2,31 +2,63 @@ package edu.gju.chatbot.etl;
 
 import edu.gju.chatbot.exception.FileProcessingException;
 import edu.gju.chatbot.metadata.MetadataKeys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.core.io.Resource;
-import org.springframework.retry.support.RetryTemplate;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestClient;
+import org.springframework.util.FileSystemUtils;
 
 public class OcrScanner implements Function<Resource, Document> {
 
     private static final Logger log = LoggerFactory.getLogger(OcrScanner.class);
 
-    private final RestClient restClient;
+    private final OcrClient ocrClient;
 
-    private final RetryTemplate retryTemplate;
+    private final OcrResultCache ocrResultCache;
 
-    public OcrScanner(RestClient restClient, RetryTemplate retryTemplate) {
-        this.restClient = restClient;
-        this.retryTemplate = retryTemplate;
+    private final MarkdownExtractor textLayerExtractor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int pagesPerShard;
+
+    /**
+     * Pages per part when scanning through the streaming endpoint, or zero
+     * to wait for the whole document.
+     */
+    private final int pagesPerStreamedPart;
+
+    public OcrScanner(
+        OcrClient ocrClient,
+        OcrResultCache ocrResultCache,
+        MarkdownExtractor textLayerExtractor,
+        MeterRegistry meterRegistry,
+        int pagesPerShard,
+        int pagesPerStreamedPart
+    ) {
+        this.ocrClient = ocrClient;
+        this.ocrResultCache = ocrResultCache;
+        this.textLayerExtractor = textLayerExtractor;
+        this.meterRegistry = meterRegistry;
+        this.pagesPerShard = pagesPerShard;
+        this.pagesPerStreamedPart = pagesPerStreamedPart;
     }
 
     public Document scan(Resource file) {
@@ -35,33 +67,176 @@ public class OcrScanner implements Function<Resource, Document> {
 
     @Override
     public Document apply(Resource file) {
-        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
-        parts.add("file", file);
+        return scan(file, ContentHashes.sha256(file));
+    }
 
-        String markdown = retryTemplate.execute(context ->
-            restClient
-                .post()
-                .body(parts)
-                .retrieve()
-                .body(OcrScannerResponse.class)
-        ).content;
+    public Document scan(Resource file, String fileHash) {
+        return scan(file, fileHash, _ -> {});
+    }
 
-        UUID fileId = UUID.randomUUID();
+    /**
+     * Scans the file like {@link #scan(Resource, String)}, handing the
+     * markdown to {@code onMarkdown} part by part, in page order, as it
+     * becomes available. Joining the parts with blank lines gives the text of
+     * the returned document.
+     */
+    public Document scan(
+        Resource file,
+        String fileHash,
+        Consumer<String> onMarkdown
+    ) {
         String fileName = file.getFilename();
+
+        String markdown = ocrResultCache
+            .get(fileHash)
+            .map(cached -> {
+                onMarkdown.accept(cached);
+                return cached;
+            })
+            .orElseGet(() -> extract(file, fileHash, onMarkdown));
+
+        UUID fileId = UUID.randomUUID();
         Map<String, Object> metadata = new HashMap<>();
 
         metadata.put(MetadataKeys.FILE_ID, fileId);
         metadata.put(MetadataKeys.FILE_NAME, fileName);
+        metadata.put(MetadataKeys.FILE_HASH, fileHash);
         try {
             metadata.put(MetadataKeys.FILE_SIZE, file.contentLength());
         } catch (IOException e) {
             throw new FileProcessingException("Failed to read file size.");
         }
 
-        log.info("Scanned {} using OCR.", fileName);
-
         return new Document(markdown, metadata);
     }
 
-    private record OcrScannerResponse(String content) {}
+    /**
+     * Born-digital PDFs are read from their text layer in-process; only
+     * files without a reliable one are sent to the OCR service. Text-layer
+     * results are cheap to redo, so only OCR results are cached.
+     */
+    private String extract(
+        Resource file,
+        String fileHash,
+        Consumer<String> onMarkdown
+    ) {
+        Timer.Sample textLayerSample = Timer.start(meterRegistry);
+        Optional<String> textLayer = textLayerExtractor.extract(file);
+
+        if (textLayer.isPresent()) {
+            textLayerSample.stop(extractionTimer("text_layer"));
+            log.info("Extracted {} from its text layer.", file.getFilename());
+            onMarkdown.accept(textLayer.get());
+
+            return textLayer.get();
+        }
+
+        // Timed from here, so the rejected text-layer pass is not counted.
+        Timer.Sample ocrSample = Timer.start(meterRegistry);
+        String scanned = scanShards(file, onMarkdown);
+        ocrSample.stop(extractionTimer("ocr"));
+        ocrResultCache.put(fileHash, scanned);
+        log.info("Scanned {} using OCR.", file.getFilename());
+
+        return scanned;
+    }
+
+    private Timer extractionTimer(String route) {
+        return Timer.builder("ocr.extraction")
+            .description("Time to produce markdown for a PDF, by route taken")
+            .tag("route", route)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Documents longer than one shard are split into page ranges that are
+     * scanned concurrently and stitched back together in page order. Each
+     * shard is retried on its own, so a transient failure only repeats that
+     * range.
+     */
+    private String scanShards(Resource file, Consumer<String> onMarkdown) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("ocr-shards-");
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to create shard directory.");
+        }
+
+        try (
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()
+        ) {
+            List<Resource> shards = PdfPageSplitter.split(
+                file,
+                pagesPerShard,
+                directory
+            );
+
+            if (shards.isEmpty()) {
+                return scanWhole(file, onMarkdown);
+            }
+
+            log.info(
+                "Scanning {} in {} shards of {} pages.",
+                file.getFilename(),
+                shards.size(),
+                pagesPerShard
+            );
+
+            List<CompletableFuture<String>> scans = shards
+                .stream()
+                .map(shard ->
+                    CompletableFuture.supplyAsync(
+                        () -> ocrClient.scan(shard),
+                        executor
+                    )
+                )
+                .toList();
+
+            List<String> parts = new ArrayList<>(scans.size());
+
+            for (CompletableFuture<String> scan : scans) {
+                String part = join(scan);
+                onMarkdown.accept(part);
+                parts.add(part);
+            }
+
+            return String.join("\n\n", parts);
+        } finally {
+            try {
+                FileSystemUtils.deleteRecursively(directory);
+            } catch (IOException e) {
+                log.warn("Failed to delete shard directory {}.", directory, e);
+            }
+        }
+    }
+
+    private String scanWhole(Resource file, Consumer<String> onMarkdown) {
+        if (pagesPerStreamedPart <= 0) {
+            String scanned = ocrClient.scan(file);
+            onMarkdown.accept(scanned);
+
+            return scanned;
+        }
+
+        List<String> parts = new ArrayList<>();
+
+        ocrClient.scanStream(file, pagesPerStreamedPart, part -> {
+            onMarkdown.accept(part);
+            parts.add(part);
+        });
+
+        return String.join("\n\n", parts);
+    }
+
+    private static String join(CompletableFuture<String> scan) {
+        try {
+            return scan.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package edu.gju.chatbot.etl;
+
+import java.io.IOException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.core.io.Resource;
+
+final class PdfDocuments {
+
+    private PdfDocuments() {}
+
+    /**
+     * Opens the PDF straight from disk when the resource is a file, so large
+     * documents are paged in rather than read into memory.
+     */
+    static PDDocument load(Resource file) throws IOException {
+        if (file.isFile()) {
+            return Loader.loadPDF(new RandomAccessReadBufferedFile(file.getFile()));
+        }
+
+        return Loader.loadPDF(new RandomAccessReadBuffer(file.getInputStream()));
+    }
+}
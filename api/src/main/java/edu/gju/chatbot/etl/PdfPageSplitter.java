@@ -0,0 +1,57 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.exception.FileProcessingException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pdfbox.multipdf.Splitter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Splits a PDF into consecutive page ranges written to a working directory,
+ * so each range can be scanned on its own.
+ */
+final class PdfPageSplitter {
+
+    private PdfPageSplitter() {}
+
+    /**
+     * Returns the shards in page order, or an empty list when the document
+     * has no more than {@code pagesPerShard} pages and needs no splitting.
+     */
+    static List<Resource> split(
+        Resource file,
+        int pagesPerShard,
+        Path directory
+    ) {
+        try (PDDocument document = PdfDocuments.load(file)) {
+            if (document.getNumberOfPages() <= pagesPerShard) {
+                return List.of();
+            }
+
+            Splitter splitter = new Splitter();
+            splitter.setSplitAtPage(pagesPerShard);
+
+            List<Resource> shards = new ArrayList<>();
+
+            for (PDDocument part : splitter.split(document)) {
+                try (part) {
+                    Path shard = directory.resolve(
+                        "shard-%04d.pdf".formatted(shards.size() + 1)
+                    );
+                    part.save(shard.toFile());
+                    shards.add(new FileSystemResource(shard));
+                }
+            }
+
+            return shards;
+        } catch (IOException e) {
+            throw new FileProcessingException(
+                "Failed to split " + file.getFilename() + " into pages."
+            );
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package edu.gju.chatbot.etl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * Builds markdown from the text layer of born-digital PDFs. Lines set in a
+ * larger font than the body text become headers, ranked by font size, and
+ * consecutive lines with wide gaps between words become table rows. Files
+ * where too many pages have little or garbled text are left to OCR.
+ */
+public class PdfTextLayerExtractor implements MarkdownExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        PdfTextLayerExtractor.class
+    );
+
+    private static final double HEADER_FONT_RATIO = 1.15;
+
+    private static final int MAX_HEADER_LENGTH = 120;
+
+    private static final int MAX_HEADER_LEVELS = 3;
+
+    private static final double MAX_GARBLED_RATIO = 0.02;
+
+    private final int minCharsPerPage;
+
+    private final double minTextPageRatio;
+
+    public PdfTextLayerExtractor(int minCharsPerPage, double minTextPageRatio) {
+        this.minCharsPerPage = minCharsPerPage;
+        this.minTextPageRatio = minTextPageRatio;
+    }
+
+    @Override
+    public Optional<String> extract(Resource file) {
+        try (PDDocument document = PdfDocuments.load(file)) {
+            LayoutStripper stripper = new LayoutStripper();
+            stripper.setSortByPosition(true);
+            stripper.getText(document);
+
+            if (!hasReliableTextLayer(stripper.pages)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(toMarkdown(stripper.pages));
+        } catch (IOException e) {
+            log.warn(
+                "Failed to read the text layer of {}, falling back to OCR.",
+                file.getFilename(),
+                e
+            );
+
+            return Optional.empty();
+        }
+    }
+
+    private boolean hasReliableTextLayer(List<List<Line>> pages) {
+        if (pages.isEmpty()) {
+            return false;
+        }
+
+        int textPages = 0;
+        long characters = 0;
+        long garbled = 0;
+
+        for (List<Line> page : pages) {
+            int pageCharacters = 0;
+
+            for (Line line : page) {
+                for (Word word : line.words) {
+                    for (int i = 0; i < word.text.length(); i++) {
+                        char c = word.text.charAt(i);
+
+                        if (c == '\uFFFD' || Character.isISOControl(c)) {
+                            garbled++;
+                        }
+                    }
+
+                    pageCharacters += word.text.length();
+                }
+            }
+
+            characters += pageCharacters;
+
+            if (pageCharacters >= minCharsPerPage) {
+                textPages++;
+            }
+        }
+
+        return (
+            (double) textPages / pages.size() >= minTextPageRatio &&
+            characters > 0 &&
+            (double) garbled / characters <= MAX_GARBLED_RATIO
+        );
+    }
+
+    private static String toMarkdown(List<List<Line>> pages) {
+        float bodyFontSize = bodyFontSize(pages);
+        Map<Float, Integer> headerLevels = headerLevels(pages, bodyFontSize);
+        StringBuilder markdown = new StringBuilder();
+        List<List<String>> table = new ArrayList<>();
+
+        for (List<Line> page : pages) {
+            for (Line line : page) {
+                List<String> cells = line.cells();
+
+                if (cells.size() > 1) {
+                    table.add(cells);
+                    continue;
+                }
+
+                appendTable(markdown, table);
+
+                Integer level = line.isHeader(bodyFontSize)
+                    ? headerLevels.get(line.fontSize())
+                    : null;
+
+                if (level != null) {
+                    markdown
+                        .append('\n')
+                        .append("#".repeat(level))
+                        .append(' ')
+                        .append(line.text())
+                        .append("\n\n");
+                } else {
+                    markdown.append(line.text()).append('\n');
+                }
+            }
+
+            appendTable(markdown, table);
+            markdown.append('\n');
+        }
+
+        return markdown.toString();
+    }
+
+    /**
+     * A single line with wide gaps is more likely a label and value than a
+     * table, so only runs of at least two such lines become tables.
+     */
+    private static void appendTable(
+        StringBuilder markdown,
+        List<List<String>> rows
+    ) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        if (rows.size() == 1) {
+            markdown.append(String.join(" ", rows.get(0))).append('\n');
+            rows.clear();
+            return;
+        }
+
+        int columns = rows.stream().mapToInt(List::size).max().orElse(0);
+
+        markdown.append('\n');
+
+        for (int r = 0; r < rows.size(); r++) {
+            List<String> row = rows.get(r);
+            markdown.append('|');
+
+            for (int c = 0; c < columns; c++) {
+                String cell = c < row.size() ? row.get(c) : "";
+                markdown
+                    .append(' ')
+                    .append(cell.replace("|", "\\|"))
+                    .append(" |");
+            }
+
+            markdown.append('\n');
+
+            if (r == 0) {
+                markdown
+                    .append('|')
+                    .append(" --- |".repeat(columns))
+                    .append('\n');
+            }
+        }
+
+        markdown.append('\n');
+        rows.clear();
+    }
+
+    private static float bodyFontSize(List<List<Line>> pages) {
+        Map<Float, Integer> characters = new HashMap<>();
+
+        for (List<Line> page : pages) {
+            for (Line line : page) {
+                characters.merge(
+                    line.fontSize(),
+                    line.text().length(),
+                    Integer::sum
+                );
+            }
+        }
+
+        return characters
+            .entrySet()
+            .stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(0f);
+    }
+
+    private static Map<Float, Integer> headerLevels(
+        List<List<Line>> pages,
+        float bodyFontSize
+    ) {
+        TreeSet<Float> sizes = new TreeSet<>(Comparator.reverseOrder());
+
+        for (List<Line> page : pages) {
+            for (Line line : page) {
+                if (line.isHeader(bodyFontSize)) {
+                    sizes.add(line.fontSize());
+                }
+            }
+        }
+
+        Map<Float, Integer> levels = new HashMap<>();
+        int level = 1;
+
+        for (Float size : sizes) {
+            levels.put(size, Math.min(level++, MAX_HEADER_LEVELS));
+        }
+
+        return levels;
+    }
+
+    private record Word(String text, float start, float end, float fontSize) {}
+
+    private static final class Line {
+
+        private final List<Word> words = new ArrayList<>();
+
+        private float fontSize() {
+            float max = 0;
+
+            for (Word word : words) {
+                max = Math.max(max, word.fontSize);
+            }
+
+            // Round to half points so sizes that differ only by rounding
+            // in the PDF rank as one header level.
+            return Math.round(max * 2) / 2f;
+        }
+
+        private String text() {
+            return String.join(
+                " ",
+                words.stream().map(Word::text).toList()
+            ).strip();
+        }
+
+        private boolean isHeader(float bodyFontSize) {
+            String text = text();
+
+            return (
+                fontSize() >= bodyFontSize * HEADER_FONT_RATIO &&
+                !text.isEmpty() &&
+                text.length() <= MAX_HEADER_LENGTH
+            );
+        }
+
+        /**
+         * Splits the line where the gap between two words is wider than a
+         * couple of characters, which is how columns are laid out.
+         */
+        private List<String> cells() {
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            Word previous = null;
+
+            for (Word word : words) {
+                if (
+                    previous != null &&
+                    word.start - previous.end > previous.fontSize * 1.5
+                ) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                }
+
+                if (!cell.isEmpty()) {
+                    cell.append(' ');
+                }
+
+                cell.append(word.text);
+                previous = word;
+            }
+
+            if (!cell.isEmpty()) {
+                cells.add(cell.toString());
+            }
+
+            return cells;
+        }
+    }
+
+    /**
+     * Collects the words of each line with their position and font size
+     * instead of writing plain text.
+     */
+    private static final class LayoutStripper extends PDFTextStripper {
+
+        private final List<List<Line>> pages = new ArrayList<>();
+
+        private Line line = new Line();
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            pages.add(new ArrayList<>());
+            super.startPage(page);
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> positions) {
+            if (text.isBlank() || positions.isEmpty()) {
+                return;
+            }
+
+            TextPosition first = positions.getFirst();
+            TextPosition last = positions.getLast();
+            float fontSize = 0;
+
+            for (TextPosition position : positions) {
+                fontSize = Math.max(fontSize, position.getFontSizeInPt());
+            }
+
+            line.words.add(
+                new Word(
+                    text,
+                    first.getXDirAdj(),
+                    last.getXDirAdj() + last.getWidthDirAdj(),
+                    fontSize
+                )
+            );
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            endLine();
+        }
+
+        @Override
+        protected void writePageEnd() throws IOException {
+            endLine();
+            super.writePageEnd();
+        }
+
+        private void endLine() {
+            if (!line.words.isEmpty() && !pages.isEmpty()) {
+                pages.getLast().add(line);
+            }
+
+            line = new Line();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.gju.chatbot.etl;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ReEmbeddingJob(
+    UUID id,
+    String model,
+    int dimensions,
+    ReEmbeddingJobStatus status,
+    long rowsCopied,
+    String error,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant finishedAt
+) {
+    public ActiveEmbeddingModel.Spec spec() {
+        return new ActiveEmbeddingModel.Spec(model, dimensions);
+    }
+}
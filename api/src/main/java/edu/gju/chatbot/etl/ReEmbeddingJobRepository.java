@@ -0,0 +1,141 @@
+package edu.gju.chatbot.etl;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class ReEmbeddingJobRepository {
+
+    private static final String COLUMNS =
+        "id, model, dimensions, status, rows_copied, error, created_at, updated_at, finished_at";
+
+    private static final RowMapper<ReEmbeddingJob> JOB = (rs, _) ->
+        new ReEmbeddingJob(
+            rs.getObject("id", UUID.class),
+            rs.getString("model"),
+            rs.getInt("dimensions"),
+            ReEmbeddingJobStatus.valueOf(rs.getString("status")),
+            rs.getLong("rows_copied"),
+            rs.getString("error"),
+            toInstant(rs.getObject("created_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("updated_at", OffsetDateTime.class)),
+            toInstant(rs.getObject("finished_at", OffsetDateTime.class))
+        );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReEmbeddingJob create(ActiveEmbeddingModel.Spec spec) {
+        return jdbcTemplate.queryForObject(
+            "INSERT INTO re_embedding_job (model, dimensions) VALUES (?, ?) RETURNING " +
+                COLUMNS,
+            JOB,
+            spec.model(),
+            spec.dimensions()
+        );
+    }
+
+    public Optional<ReEmbeddingJob> findById(UUID id) {
+        return jdbcTemplate
+            .query(
+                "SELECT " + COLUMNS + " FROM re_embedding_job WHERE id = ?",
+                JOB,
+                id
+            )
+            .stream()
+            .findFirst();
+    }
+
+    public Optional<ReEmbeddingJob> findLatest() {
+        return jdbcTemplate
+            .query(
+                "SELECT " +
+                    COLUMNS +
+                    " FROM re_embedding_job ORDER BY created_at DESC LIMIT 1",
+                JOB
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Returns the job that neither completed nor was cancelled, if any. A
+     * failed job is unfinished: starting it again resumes it.
+     */
+    public Optional<ReEmbeddingJob> findUnfinished() {
+        return jdbcTemplate
+            .query(
+                "SELECT " +
+                    COLUMNS +
+                    " FROM re_embedding_job WHERE status NOT IN ('COMPLETED', 'CANCELLED')" +
+                    " ORDER BY created_at DESC LIMIT 1",
+                JOB
+            )
+            .stream()
+            .findFirst();
+    }
+
+    public Optional<UUID> findLastCopiedId(UUID id) {
+        return Optional.ofNullable(
+            jdbcTemplate.queryForObject(
+                "SELECT last_copied_id FROM re_embedding_job WHERE id = ?",
+                UUID.class,
+                id
+            )
+        );
+    }
+
+    /**
+     * Records a copied batch. Runs in the transaction that wrote the batch
+     * to the shadow table, so a resumed job continues after the last batch
+     * that actually landed.
+     */
+    public void recordProgress(UUID id, UUID lastCopiedId, int rows) {
+        jdbcTemplate.update(
+            """
+            UPDATE re_embedding_job
+            SET last_copied_id = ?,
+                rows_copied = rows_copied + ?,
+                updated_at = now()
+            WHERE id = ?
+            """,
+            lastCopiedId,
+            rows,
+            id
+        );
+    }
+
+    public void updateStatus(UUID id, ReEmbeddingJobStatus status, String error) {
+        boolean finished = List.of(
+            ReEmbeddingJobStatus.COMPLETED,
+            ReEmbeddingJobStatus.FAILED,
+            ReEmbeddingJobStatus.CANCELLED
+        ).contains(status);
+
+        jdbcTemplate.update(
+            """
+            UPDATE re_embedding_job
+            SET status = ?,
+                error = ?,
+                updated_at = now(),
+                finished_at = CASE WHEN ? THEN now() END
+            WHERE id = ?
+            """,
+            status.name(),
+            error,
+            finished,
+            id
+        );
+    }
+
+    private static Instant toInstant(OffsetDateTime timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
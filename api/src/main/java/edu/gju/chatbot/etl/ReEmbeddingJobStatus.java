@@ -0,0 +1,10 @@
+package edu.gju.chatbot.etl;
+
+public enum ReEmbeddingJobStatus {
+    COPYING,
+    INDEXING,
+    CATCHING_UP,
+    COMPLETED,
+    FAILED,
+    CANCELLED,
+}
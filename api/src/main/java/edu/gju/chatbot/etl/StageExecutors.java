@@ -0,0 +1,88 @@
+package edu.gju.chatbot.etl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * One bounded pool per ingestion stage. Handing work to a stage whose queue is
+ * full blocks the caller (usually a worker of the previous stage) until a slot
+ * frees up, so a slow stage throttles the stages feeding it instead of letting
+ * intermediate results pile up in memory.
+ */
+public class StageExecutors implements AutoCloseable {
+
+    private static final RejectedExecutionHandler BLOCK_WHEN_FULL = (
+        task,
+        pool
+    ) -> {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Stage executor is shut down.");
+        }
+
+        try {
+            pool.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    };
+
+    private final Map<IngestionStage, ThreadPoolExecutor> executors =
+        new EnumMap<>(IngestionStage.class);
+
+    public StageExecutors(Map<IngestionStage, StageLimits> limits) {
+        for (IngestionStage stage : IngestionStage.values()) {
+            StageLimits stageLimits = limits.getOrDefault(
+                stage,
+                StageLimits.DEFAULT
+            );
+
+            executors.put(
+                stage,
+                new ThreadPoolExecutor(
+                    stageLimits.workers(),
+                    stageLimits.workers(),
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(stageLimits.queueCapacity()),
+                    new CustomizableThreadFactory(
+                        "etl-" + stage.name().toLowerCase() + "-"
+                    ),
+                    BLOCK_WHEN_FULL
+                )
+            );
+        }
+    }
+
+    public Executor get(IngestionStage stage) {
+        return executors.get(stage);
+    }
+
+    public int getQueueDepth(IngestionStage stage) {
+        return executors.get(stage).getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    public record StageLimits(int workers, int queueCapacity) {
+        public static final StageLimits DEFAULT = new StageLimits(2, 16);
+
+        public StageLimits {
+            if (workers < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException(
+                    "Stage workers and queue capacity must be positive."
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package edu.gju.chatbot.etl;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts text into chunks of at most {@code chunkSize} tokens, preferring to
+ * end a chunk on the last sentence or line break, like Spring AI's
+ * {@code TokenTextSplitter}. The text is encoded once and chunks advance over
+ * that encoding, instead of re-encoding every chunk to find out how many
+ * tokens it used, and each chunk reports its token count.
+ */
+public class TokenChunker {
+
+    public record Chunk(String text, int tokenCount) {}
+
+    private final Encoding encoding;
+
+    private final int chunkSize;
+
+    private final int minChunkSizeChars;
+
+    private final int minChunkLengthToEmbed;
+
+    private final int maxNumChunks;
+
+    public TokenChunker(
+        EncodingType encodingType,
+        int chunkSize,
+        int minChunkSizeChars,
+        int minChunkLengthToEmbed,
+        int maxNumChunks
+    ) {
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(
+            encodingType
+        );
+        this.chunkSize = chunkSize;
+        this.minChunkSizeChars = minChunkSizeChars;
+        this.minChunkLengthToEmbed = minChunkLengthToEmbed;
+        this.maxNumChunks = maxNumChunks;
+    }
+
+    public List<Chunk> chunk(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        IntArrayList tokens = encoding.encodeOrdinary(text);
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        int numChunks = 0;
+
+        while (start < tokens.size() && numChunks < maxNumChunks) {
+            IntArrayList window = range(
+                tokens,
+                start,
+                Math.min(start + chunkSize, tokens.size())
+            );
+            String chunkText = encoding.decode(window);
+
+            if (chunkText.isBlank()) {
+                start += window.size();
+                continue;
+            }
+
+            int consumed = window.size();
+            int lastPunctuation = Math.max(
+                Math.max(chunkText.lastIndexOf('.'), chunkText.lastIndexOf('?')),
+                Math.max(chunkText.lastIndexOf('!'), chunkText.lastIndexOf('\n'))
+            );
+
+            if (lastPunctuation != -1 && lastPunctuation > minChunkSizeChars) {
+                chunkText = chunkText.substring(0, lastPunctuation + 1);
+                consumed = tokensCovering(
+                    window,
+                    chunkText.getBytes(StandardCharsets.UTF_8).length
+                );
+            }
+
+            String trimmed = chunkText.trim();
+
+            if (trimmed.length() > minChunkLengthToEmbed) {
+                chunks.add(new Chunk(trimmed, consumed));
+            }
+
+            start += consumed;
+            numChunks++;
+        }
+
+        if (start < tokens.size()) {
+            String remaining = encoding
+                .decode(range(tokens, start, tokens.size()))
+                .replace(System.lineSeparator(), " ")
+                .trim();
+
+            if (remaining.length() > minChunkLengthToEmbed) {
+                chunks.add(new Chunk(remaining, tokens.size() - start));
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Returns how many leading tokens of the window it takes to cover the
+     * given number of UTF-8 bytes.
+     */
+    private int tokensCovering(IntArrayList window, int bytes) {
+        IntArrayList single = new IntArrayList(1);
+        single.add(0);
+        int covered = 0;
+
+        for (int i = 0; i < window.size(); i++) {
+            single.set(0, window.get(i));
+            covered += encoding.decodeBytes(single).length;
+
+            if (covered >= bytes) {
+                return i + 1;
+            }
+        }
+
+        return window.size();
+    }
+
+    private static IntArrayList range(IntArrayList tokens, int from, int to) {
+        IntArrayList range = new IntArrayList(to - from);
+
+        for (int i = from; i < to; i++) {
+            range.add(tokens.get(i));
+        }
+
+        return range;
+    }
+}
@@ -0,0 +1,368 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.catalog.CatalogEntry;
+import edu.gju.chatbot.catalog.DocumentCatalogRepository;
+import edu.gju.chatbot.catalog.FacetIndex;
+import edu.gju.chatbot.course.CourseRepository;
+import edu.gju.chatbot.course.CourseTable;
+import edu.gju.chatbot.exception.RagException;
+import edu.gju.chatbot.section.Section;
+import edu.gju.chatbot.section.SectionCache;
+import edu.gju.chatbot.section.SectionRepository;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Loads a complete corpus into a fresh, index-free staging table with binary
+ * COPY, builds the HNSW index once over the finished table and then swaps it
+ * in for {@code vector_store}. Much faster than inserting into the live table,
+ * where every row pays for HNSW graph maintenance.
+ * <p>
+ * A load holds an advisory lock from {@link #begin()} until its session is
+ * closed. Writers to {@code vector_store} take it shared in their
+ * transaction through {@link #tryLockShared}, so writes that are still in
+ * flight are committed before the load starts, and writes attempted while it
+ * runs fail instead of landing in a table that is about to be replaced. The
+ * ingestion job worker holds off claiming jobs meanwhile.
+ */
+public class VectorStoreBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        VectorStoreBulkLoader.class
+    );
+
+    private static final byte[] COPY_SIGNATURE = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+    };
+
+    private static final String STAGING_TABLE = "vector_store_staging";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final VectorStoreWriter vectorStoreWriter;
+
+    private final NearDuplicateDetector nearDuplicateDetector;
+
+    private final DocumentCatalogRepository documentCatalogRepository;
+
+    private final FacetIndex facetIndex;
+
+    private final SectionRepository sectionRepository;
+
+    private final SectionCache sectionCache;
+
+    private final CourseRepository courseRepository;
+
+    private final DataSize maintenanceWorkMem;
+
+    private final int maxParallelMaintenanceWorkers;
+
+    public VectorStoreBulkLoader(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        VectorStoreWriter vectorStoreWriter,
+        NearDuplicateDetector nearDuplicateDetector,
+        DocumentCatalogRepository documentCatalogRepository,
+        FacetIndex facetIndex,
+        SectionRepository sectionRepository,
+        SectionCache sectionCache,
+        CourseRepository courseRepository,
+        DataSize maintenanceWorkMem,
+        int maxParallelMaintenanceWorkers
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.vectorStoreWriter = vectorStoreWriter;
+        this.nearDuplicateDetector = nearDuplicateDetector;
+        this.documentCatalogRepository = documentCatalogRepository;
+        this.facetIndex = facetIndex;
+        this.sectionRepository = sectionRepository;
+        this.sectionCache = sectionCache;
+        this.courseRepository = courseRepository;
+        this.maintenanceWorkMem = maintenanceWorkMem;
+        this.maxParallelMaintenanceWorkers = maxParallelMaintenanceWorkers;
+    }
+
+    /**
+     * Takes the bulk load lock shared until the end of the calling
+     * transaction, or, outside a transaction, only checks it. Returns false
+     * while a bulk load is running.
+     */
+    static boolean tryLockShared(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock_shared(hashtext(?))",
+                Boolean.class,
+                STAGING_TABLE
+            )
+        );
+    }
+
+    public Session begin() {
+        Connection lockConnection = lock();
+
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+            jdbcTemplate.execute(
+                "CREATE TABLE " +
+                    STAGING_TABLE +
+                    " (LIKE vector_store INCLUDING DEFAULTS INCLUDING GENERATED)"
+            );
+        } catch (RuntimeException e) {
+            unlock(lockConnection);
+            throw e;
+        }
+
+        log.info("Started bulk load into {}.", STAGING_TABLE);
+
+        return new Session(lockConnection);
+    }
+
+    /**
+     * Takes the bulk load lock on a connection of its own, which holds it
+     * for the whole load. Waits for writers holding it shared to commit.
+     */
+    private Connection lock() {
+        try {
+            Connection connection = jdbcTemplate
+                .getDataSource()
+                .getConnection();
+
+            try (
+                PreparedStatement statement = connection.prepareStatement(
+                    "SELECT pg_advisory_lock(hashtext(?))"
+                )
+            ) {
+                statement.setString(1, STAGING_TABLE);
+                statement.execute();
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+
+            return connection;
+        } catch (SQLException e) {
+            throw new RagException("Failed to take the bulk load lock.", e);
+        }
+    }
+
+    private void unlock(Connection connection) {
+        try (
+            connection;
+            PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_advisory_unlock(hashtext(?))"
+            )
+        ) {
+            statement.setString(1, STAGING_TABLE);
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("Failed to release the bulk load lock.", e);
+        }
+    }
+
+    public class Session implements ChunkWriter, AutoCloseable {
+
+        private final Queue<CatalogEntry> catalogEntries =
+            new ConcurrentLinkedQueue<>();
+
+        private final Queue<Section> sections = new ConcurrentLinkedQueue<>();
+
+        private final Queue<CourseTable> courseTables =
+            new ConcurrentLinkedQueue<>();
+
+        private final Connection lockConnection;
+
+        private boolean committed;
+
+        private Session(Connection lockConnection) {
+            this.lockConnection = lockConnection;
+        }
+
+        /**
+         * Embeds the chunks (reusing stored embeddings where possible) and
+         * streams them into the staging table. Safe to call concurrently; each
+         * call runs its own COPY on its own connection. The course table is
+         * held until {@link #commit()} swaps it in with the chunks.
+         */
+        @Override
+        public void write(List<Document> chunks, CourseTable courseTable) {
+            if (chunks.isEmpty()) {
+                return;
+            }
+
+            vectorStoreWriter.fingerprint(chunks);
+            List<float[]> embeddings = vectorStoreWriter.embed(chunks);
+
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                PGConnection pgConnection = connection.unwrap(
+                    PGConnection.class
+                );
+
+                try (
+                    DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(
+                            new PGCopyOutputStream(
+                                pgConnection,
+                                "COPY " +
+                                    STAGING_TABLE +
+                                    " (id, content, metadata, embedding) FROM STDIN (FORMAT BINARY)"
+                            ),
+                            1 << 16
+                        )
+                    )
+                ) {
+                    writeRows(out, chunks, embeddings);
+                } catch (IOException e) {
+                    throw new SQLException("Failed to stream chunks to COPY.", e);
+                }
+
+                return null;
+            });
+
+            catalogEntries.add(CatalogEntry.of(chunks.getFirst().getMetadata()));
+            sections.addAll(Section.assemble(chunks));
+
+            if (courseTable != null) {
+                courseTables.add(courseTable);
+            }
+        }
+
+        /**
+         * Links the loaded near-duplicates to their canonical rows, builds
+         * the primary key, HNSW index and near-duplicate lookup indexes over
+         * the loaded rows, then atomically replaces {@code vector_store} with
+         * the staging table. Linking comes first, so the HNSW index is built
+         * without the duplicates' embeddings.
+         */
+        public void commit() {
+            nearDuplicateDetector.linkDuplicates(STAGING_TABLE);
+
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(
+                        "SET maintenance_work_mem = '" +
+                            maintenanceWorkMem.toMegabytes() +
+                            "MB'"
+                    );
+                    statement.execute(
+                        "SET max_parallel_maintenance_workers = " +
+                            maxParallelMaintenanceWorkers
+                    );
+
+                    try {
+                        statement.execute(
+                            "ALTER TABLE " +
+                                STAGING_TABLE +
+                                " ADD CONSTRAINT vector_store_staging_pkey PRIMARY KEY (id)"
+                        );
+
+                        for (String index : VectorStoreTables.indexStatements(
+                            STAGING_TABLE
+                        )) {
+                            statement.execute(index);
+                        }
+                    } finally {
+                        statement.execute("RESET maintenance_work_mem");
+                        statement.execute("RESET max_parallel_maintenance_workers");
+                    }
+                }
+
+                return null;
+            });
+
+            transactionTemplate.executeWithoutResult(_ -> {
+                VectorStoreTables.swapIn(jdbcTemplate, STAGING_TABLE);
+                documentCatalogRepository.replaceAll(catalogEntries);
+                sectionRepository.replaceAll(sections);
+                courseRepository.replaceAll(courseTables);
+            });
+
+            facetIndex.replaceAll(catalogEntries);
+            sectionCache.invalidateAll();
+
+            committed = true;
+            log.info("Bulk load committed, {} swapped in.", STAGING_TABLE);
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!committed) {
+                    jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+                    log.warn("Bulk load aborted, dropped {}.", STAGING_TABLE);
+                }
+            } finally {
+                unlock(lockConnection);
+            }
+        }
+    }
+
+    private void writeRows(
+        DataOutputStream out,
+        List<Document> chunks,
+        List<float[]> embeddings
+    ) throws IOException {
+        out.write(COPY_SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            float[] embedding = embeddings.get(i);
+
+            out.writeShort(4);
+
+            UUID id = UUID.fromString(chunk.getId());
+            out.writeInt(16);
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+
+            writeBytes(out, chunk.getText().getBytes(StandardCharsets.UTF_8));
+
+            // jsonb binary format: a version byte (1) followed by the text.
+            byte[] metadata = vectorStoreWriter
+                .toJson(chunk.getMetadata())
+                .getBytes(StandardCharsets.UTF_8);
+            out.writeInt(1 + metadata.length);
+            out.writeByte(1);
+            out.write(metadata);
+
+            // pgvector binary format: int16 dimensions, int16 unused, float4[].
+            out.writeInt(4 + 4 * embedding.length);
+            out.writeShort(embedding.length);
+            out.writeShort(0);
+            for (float value : embedding) {
+                out.writeFloat(value);
+            }
+        }
+
+        out.writeShort(-1);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes)
+        throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
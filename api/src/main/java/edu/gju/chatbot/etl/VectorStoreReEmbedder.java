@@ -0,0 +1,408 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import edu.gju.chatbot.exception.RagException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Re-embeds the whole vector store with another embedding model without
+ * re-running OCR or enrichment and without taking search offline. Rows are
+ * streamed from {@code vector_store} in id order into a shadow table with the
+ * new dimensions, embedded at the pace the shared {@link EmbeddingDispatcher}
+ * allows. Near-duplicates are copied without an embedding, as stored.
+ * <p>
+ * Progress is recorded with every batch, so a failed or interrupted job
+ * resumes where it stopped when started again with the same model. Once the
+ * copy is done the HNSW index is built on the shadow table, and changes
+ * ingested meanwhile are caught up in passes. The last pass runs while
+ * writes to {@code vector_store} are blocked, in the transaction that swaps
+ * the tables and switches the {@link ActiveEmbeddingModel}, and only once a
+ * pass has found no more than a batch of changes; otherwise the job fails
+ * and can be resumed. Searches keep
+ * running throughout, except for the moment of the swap itself.
+ */
+public class VectorStoreReEmbedder {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        VectorStoreReEmbedder.class
+    );
+
+    private static final String SHADOW_TABLE = "vector_store_shadow";
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final TypeReference<Map<String, Object>> METADATA =
+        new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EmbeddingDispatcher embeddingDispatcher;
+
+    private final ActiveEmbeddingModel activeEmbeddingModel;
+
+    private final ReEmbeddingJobRepository jobRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final Duration batchDelay;
+
+    private final int maxCatchUpPasses;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final RowMapper<Row> rowMapper = (rs, _) ->
+        new Row(
+            rs.getObject("id", UUID.class),
+            rs.getString("content"),
+            rs.getString("metadata"),
+            rs.getBoolean("duplicate")
+        );
+
+    public VectorStoreReEmbedder(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        EmbeddingDispatcher embeddingDispatcher,
+        ActiveEmbeddingModel activeEmbeddingModel,
+        ReEmbeddingJobRepository jobRepository,
+        ObjectMapper objectMapper,
+        int batchSize,
+        Duration batchDelay,
+        int maxCatchUpPasses
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.embeddingDispatcher = embeddingDispatcher;
+        this.activeEmbeddingModel = activeEmbeddingModel;
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+        this.maxCatchUpPasses = maxCatchUpPasses;
+    }
+
+    /**
+     * Starts re-embedding with {@code target} in the background, resuming an
+     * unfinished job for the same model. An unfinished job for another model
+     * is cancelled and its shadow table dropped.
+     */
+    public ReEmbeddingJob start(ActiveEmbeddingModel.Spec target) {
+        if (target.equals(activeEmbeddingModel.current())) {
+            throw new RagException(
+                "The vector store is already embedded with " + target.key() + "."
+            );
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            throw new RagException("A re-embedding job is already running.");
+        }
+
+        try {
+            ReEmbeddingJob job = jobRepository.findUnfinished().orElse(null);
+
+            if (job != null && !job.spec().equals(target)) {
+                jobRepository.updateStatus(
+                    job.id(),
+                    ReEmbeddingJobStatus.CANCELLED,
+                    "Superseded by a job for " + target.key() + "."
+                );
+                job = null;
+            }
+
+            if (job == null) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + SHADOW_TABLE);
+                job = jobRepository.create(target);
+            }
+
+            createShadowTable(target);
+
+            log.info(
+                "Re-embedding vector store with {}, job {}.",
+                target.key(),
+                job.id()
+            );
+
+            UUID jobId = job.id();
+            Thread.ofVirtual()
+                .name("re-embedding-" + jobId)
+                .start(() -> run(jobId, target));
+
+            return job;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private void run(UUID jobId, ActiveEmbeddingModel.Spec target) {
+        try {
+            jobRepository.updateStatus(jobId, ReEmbeddingJobStatus.COPYING, null);
+            copy(jobId, target);
+
+            jobRepository.updateStatus(jobId, ReEmbeddingJobStatus.INDEXING, null);
+            for (String index : VectorStoreTables.indexStatements(SHADOW_TABLE)) {
+                jdbcTemplate.execute(index);
+            }
+
+            jobRepository.updateStatus(
+                jobId,
+                ReEmbeddingJobStatus.CATCHING_UP,
+                null
+            );
+            int changed = Integer.MAX_VALUE;
+            for (int pass = 0; pass < maxCatchUpPasses; pass++) {
+                changed = catchUp(target);
+                if (changed <= batchSize) {
+                    break;
+                }
+            }
+
+            // The last pass embeds while writes are blocked, so it must be
+            // known to be small. Resuming the job later catches up again.
+            if (changed > batchSize) {
+                throw new RagException(
+                    "Ingestion kept changing more than " +
+                        batchSize +
+                        " rows per catch-up pass; start the job again to " +
+                        "resume once ingestion is quieter."
+                );
+            }
+
+            transactionTemplate.executeWithoutResult(_ -> {
+                activeEmbeddingModel.activate(target);
+                jdbcTemplate.execute(
+                    "LOCK TABLE vector_store IN EXCLUSIVE MODE"
+                );
+                catchUp(target);
+                VectorStoreTables.swapIn(jdbcTemplate, SHADOW_TABLE);
+                jobRepository.updateStatus(
+                    jobId,
+                    ReEmbeddingJobStatus.COMPLETED,
+                    null
+                );
+            });
+
+            log.info(
+                "Re-embedding job {} swapped in the vector store for {}.",
+                jobId,
+                target.key()
+            );
+        } catch (RuntimeException e) {
+            log.error("Re-embedding job {} failed.", jobId, e);
+            jobRepository.updateStatus(
+                jobId,
+                ReEmbeddingJobStatus.FAILED,
+                e.getMessage()
+            );
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Creates the shadow table unless a resumed job already has one.
+     */
+    private void createShadowTable(ActiveEmbeddingModel.Spec target) {
+        boolean exists = Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL",
+                Boolean.class,
+                SHADOW_TABLE
+            )
+        );
+
+        if (exists) {
+            return;
+        }
+
+        jdbcTemplate.execute(
+            "CREATE TABLE " +
+                SHADOW_TABLE +
+                " (LIKE vector_store INCLUDING DEFAULTS INCLUDING GENERATED)"
+        );
+        jdbcTemplate.execute(
+            "ALTER TABLE " +
+                SHADOW_TABLE +
+                " ALTER COLUMN embedding TYPE vector(" +
+                target.dimensions() +
+                ")"
+        );
+        jdbcTemplate.execute(
+            "ALTER TABLE " +
+                SHADOW_TABLE +
+                " ADD CONSTRAINT " +
+                SHADOW_TABLE +
+                "_pkey PRIMARY KEY (id)"
+        );
+    }
+
+    private void copy(UUID jobId, ActiveEmbeddingModel.Spec target) {
+        UUID lastId = jobRepository.findLastCopiedId(jobId).orElse(FIRST_ID);
+
+        while (true) {
+            List<Row> rows = jdbcTemplate.query(
+                """
+                SELECT id, content, metadata::text AS metadata, embedding IS NULL AS duplicate
+                FROM vector_store
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """,
+                rowMapper,
+                lastId,
+                batchSize
+            );
+
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> shadowRows = embed(rows, target);
+            UUID batchLastId = rows.getLast().id();
+
+            transactionTemplate.executeWithoutResult(_ -> {
+                upsert(shadowRows);
+                jobRepository.recordProgress(jobId, batchLastId, rows.size());
+            });
+
+            lastId = batchLastId;
+            pause();
+        }
+    }
+
+    /**
+     * Brings the shadow table in line with rows written, replaced or
+     * promoted from near-duplicate since they were copied, and returns the
+     * number of rows that differed.
+     */
+    private int catchUp(ActiveEmbeddingModel.Spec target) {
+        int removed = jdbcTemplate.update(
+            """
+            DELETE FROM vector_store_shadow s
+            WHERE NOT EXISTS (SELECT 1 FROM vector_store v WHERE v.id = s.id)
+            """
+        );
+
+        List<Row> changed = jdbcTemplate.query(
+            """
+            SELECT v.id, v.content, v.metadata::text AS metadata, v.embedding IS NULL AS duplicate
+            FROM vector_store v
+            LEFT JOIN vector_store_shadow s ON s.id = v.id
+            WHERE s.id IS NULL
+               OR s.content IS DISTINCT FROM v.content
+               OR s.metadata IS DISTINCT FROM v.metadata
+               OR (s.embedding IS NULL) <> (v.embedding IS NULL)
+            """,
+            rowMapper
+        );
+
+        for (int i = 0; i < changed.size(); i += batchSize) {
+            upsert(
+                embed(
+                    changed.subList(i, Math.min(i + batchSize, changed.size())),
+                    target
+                )
+            );
+        }
+
+        log.info(
+            "Re-embedding caught up {} changed and {} removed rows.",
+            changed.size(),
+            removed
+        );
+
+        return changed.size() + removed;
+    }
+
+    private List<Object[]> embed(
+        List<Row> rows,
+        ActiveEmbeddingModel.Spec target
+    ) {
+        List<Document> documents = rows
+            .stream()
+            .filter(r -> !r.duplicate())
+            .map(r ->
+                new Document(r.id().toString(), r.content(), parse(r.metadata()))
+            )
+            .toList();
+
+        Iterator<float[]> embeddings = embeddingDispatcher
+            .embed(documents, target.options())
+            .iterator();
+
+        List<Object[]> shadowRows = new ArrayList<>(rows.size());
+
+        for (Row row : rows) {
+            shadowRows.add(
+                new Object[] {
+                    row.id(),
+                    row.content(),
+                    row.metadata(),
+                    row.duplicate() ? null : new PGvector(embeddings.next()),
+                }
+            );
+        }
+
+        return shadowRows;
+    }
+
+    private void upsert(List<Object[]> shadowRows) {
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO vector_store_shadow (id, content, metadata, embedding)
+            VALUES (?, ?, ?::jsonb, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                content = EXCLUDED.content,
+                metadata = EXCLUDED.metadata,
+                embedding = EXCLUDED.embedding
+            """,
+            shadowRows
+        );
+    }
+
+    private Map<String, Object> parse(String metadata) {
+        try {
+            return objectMapper.readValue(metadata, METADATA);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to parse chunk metadata.", e);
+        }
+    }
+
+    private void pause() {
+        if (batchDelay.isZero()) {
+            return;
+        }
+
+        try {
+            Thread.sleep(batchDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RagException("Interrupted while re-embedding.", e);
+        }
+    }
+
+    private record Row(
+        UUID id,
+        String content,
+        String metadata,
+        boolean duplicate
+    ) {}
+}
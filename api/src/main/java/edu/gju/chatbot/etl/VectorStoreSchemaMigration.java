@@ -0,0 +1,138 @@
+package edu.gju.chatbot.etl;
+
+import edu.gju.chatbot.catalog.DocumentCatalogRepository;
+import edu.gju.chatbot.section.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Brings {@code vector_store} up to date at startup, after {@code schema.sql}
+ * has created it. Stores created before metadata moved to JSONB are converted
+ * once; the generated columns and indexes from {@link VectorStoreTables} are
+ * added where missing, and the document catalog and assembled sections are
+ * filled from the store if they are empty. Kept out of {@code schema.sql} because the conversion
+ * must only run while the column is still JSON, and the generated columns
+ * cannot exist before it has run.
+ */
+@RequiredArgsConstructor
+@Component
+public class VectorStoreSchemaMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        VectorStoreSchemaMigration.class
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DocumentCatalogRepository documentCatalogRepository;
+
+    private final SectionRepository sectionRepository;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (needsMigration()) {
+            transactionTemplate.executeWithoutResult(_ -> {
+                jdbcTemplate.execute(
+                    "LOCK TABLE " +
+                        VectorStoreTables.LIVE_TABLE +
+                        " IN ACCESS EXCLUSIVE MODE"
+                );
+
+                // Another instance may have migrated while we waited.
+                if (!needsMigration()) {
+                    return;
+                }
+
+                migrate();
+            });
+        }
+
+        for (String index : VectorStoreTables.indexStatements(
+            VectorStoreTables.LIVE_TABLE
+        )) {
+            jdbcTemplate.execute(index);
+        }
+
+        int cataloged = documentCatalogRepository.backfill();
+
+        if (cataloged > 0) {
+            log.info("Backfilled the document catalog with {} files.", cataloged);
+        }
+
+        int sections = sectionRepository.backfill();
+
+        if (sections > 0) {
+            log.info("Backfilled {} assembled sections.", sections);
+        }
+    }
+
+    private boolean needsMigration() {
+        Integer generatedColumns = jdbcTemplate.queryForObject(
+            """
+            SELECT count(*)
+            FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = ? AND is_generated = 'ALWAYS'
+            """,
+            Integer.class,
+            VectorStoreTables.LIVE_TABLE
+        );
+
+        return (
+            !"jsonb".equals(metadataType()) ||
+            generatedColumns < VectorStoreTables.GENERATED_COLUMNS.size()
+        );
+    }
+
+    private void migrate() {
+        if (!"jsonb".equals(metadataType())) {
+            // Rebuilt by indexStatements with a plain jsonb expression.
+            jdbcTemplate.execute(
+                "DROP INDEX IF EXISTS " +
+                    VectorStoreTables.LIVE_TABLE +
+                    "_lsh_bands_idx"
+            );
+            jdbcTemplate.execute(
+                "ALTER TABLE " +
+                    VectorStoreTables.LIVE_TABLE +
+                    " ALTER COLUMN metadata TYPE JSONB USING metadata::jsonb"
+            );
+            log.info(
+                "Converted {} metadata to JSONB.",
+                VectorStoreTables.LIVE_TABLE
+            );
+        }
+
+        for (String column : VectorStoreTables.GENERATED_COLUMNS) {
+            jdbcTemplate.execute(
+                "ALTER TABLE " +
+                    VectorStoreTables.LIVE_TABLE +
+                    " ADD COLUMN IF NOT EXISTS " +
+                    column
+            );
+        }
+
+        log.info(
+            "Added generated metadata columns to {}.",
+            VectorStoreTables.LIVE_TABLE
+        );
+    }
+
+    private String metadataType() {
+        return jdbcTemplate.queryForObject(
+            """
+            SELECT data_type
+            FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'metadata'
+            """,
+            String.class,
+            VectorStoreTables.LIVE_TABLE
+        );
+    }
+}
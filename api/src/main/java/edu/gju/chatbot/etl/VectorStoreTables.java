@@ -0,0 +1,115 @@
+package edu.gju.chatbot.etl;
+
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The DDL of {@code vector_store} beyond its base columns, shared by the
+ * schema migration and the jobs that build a replacement for the table in a
+ * side table and swap it in: the bulk loader and the re-embedding job.
+ * Indexes on the side table are named after it, so the swap can rename them
+ * to the names of the live table's indexes.
+ */
+final class VectorStoreTables {
+
+    static final String LIVE_TABLE = "vector_store";
+
+    /**
+     * Metadata values the writers and retrieval queries filter and sort on,
+     * extracted into columns so B-tree indexes can serve them. Integers are
+     * only extracted when stored as JSON numbers, so a malformed value cannot
+     * fail a write.
+     */
+    static final List<String> GENERATED_COLUMNS = List.of(
+        "file_name TEXT GENERATED ALWAYS AS (metadata ->> 'file_name') STORED",
+        "content_hash TEXT GENERATED ALWAYS AS (metadata ->> 'content_hash') STORED",
+        "section_id TEXT GENERATED ALWAYS AS (metadata ->> 'section_id') STORED",
+        "chunk_index INTEGER GENERATED ALWAYS AS (" +
+            integer("chunk_index") +
+            ") STORED",
+        "document_type TEXT GENERATED ALWAYS AS (metadata ->> 'document_type') STORED",
+        "file_id TEXT GENERATED ALWAYS AS (metadata ->> 'file_id') STORED",
+        "year INTEGER GENERATED ALWAYS AS (" + integer("year") + ") STORED"
+    );
+
+    private static final List<Index> INDEXES = List.of(
+        new Index("_embedding_idx", "USING HNSW (embedding vector_cosine_ops)"),
+        new Index("_canonical_id_idx", "((metadata ->> 'canonical_id'))"),
+        new Index("_lsh_bands_idx", "USING GIN ((metadata -> 'lsh_bands'))"),
+        new Index("_metadata_idx", "USING GIN (metadata jsonb_path_ops)"),
+        new Index("_section_idx", "(section_id, chunk_index)"),
+        new Index("_document_type_idx", "(document_type, year)"),
+        new Index("_file_id_idx", "(file_id)"),
+        new Index("_file_name_idx", "(file_name)"),
+        new Index("_content_hash_idx", "(content_hash)")
+    );
+
+    private VectorStoreTables() {}
+
+    /**
+     * Returns the statements creating the HNSW index, the near-duplicate
+     * lookup indexes and the metadata indexes on {@code table}, in the order
+     * they should run.
+     */
+    static List<String> indexStatements(String table) {
+        return INDEXES.stream()
+            .map(
+                index ->
+                    "CREATE INDEX IF NOT EXISTS " +
+                    table +
+                    index.suffix() +
+                    " ON " +
+                    table +
+                    " " +
+                    index.definition()
+            )
+            .toList();
+    }
+
+    /**
+     * Replaces {@code vector_store} with {@code table}, which must already
+     * have its primary key ({@code <table>_pkey}) and indexes. Must run in a
+     * transaction; searches block only for the duration of the renames.
+     */
+    static void swapIn(JdbcTemplate jdbcTemplate, String table) {
+        jdbcTemplate.execute(
+            "LOCK TABLE " + LIVE_TABLE + " IN ACCESS EXCLUSIVE MODE"
+        );
+        jdbcTemplate.execute("DROP TABLE " + LIVE_TABLE);
+        jdbcTemplate.execute(
+            "ALTER TABLE " + table + " RENAME TO " + LIVE_TABLE
+        );
+        jdbcTemplate.execute(
+            "ALTER TABLE " +
+                LIVE_TABLE +
+                " RENAME CONSTRAINT " +
+                table +
+                "_pkey TO " +
+                LIVE_TABLE +
+                "_pkey"
+        );
+
+        for (Index index : INDEXES) {
+            jdbcTemplate.execute(
+                "ALTER INDEX " +
+                    table +
+                    index.suffix() +
+                    " RENAME TO " +
+                    LIVE_TABLE +
+                    index.suffix()
+            );
+        }
+    }
+
+    private static String integer(String key) {
+        return (
+            "CASE WHEN jsonb_typeof(metadata -> '" +
+            key +
+            "') = 'number' THEN (metadata ->> '" +
+            key +
+            "')::integer END"
+        );
+    }
+
+    private record Index(String suffix, String definition) {}
+}
@@ -0,0 +1,457 @@
+package edu.gju.chatbot.etl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import edu.gju.chatbot.catalog.CatalogEntry;
+import edu.gju.chatbot.catalog.DocumentCatalogRepository;
+import edu.gju.chatbot.catalog.FacetIndex;
+import edu.gju.chatbot.course.CourseRepository;
+import edu.gju.chatbot.course.CourseTable;
+import edu.gju.chatbot.exception.RagException;
+import edu.gju.chatbot.metadata.MetadataKeys;
+import edu.gju.chatbot.section.Section;
+import edu.gju.chatbot.section.SectionCache;
+import edu.gju.chatbot.section.SectionRepository;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.ContentFormatter;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the chunks of one file to the vector store, replacing any rows of a
+ * previous version of that file. Chunks whose embed-formatted content is
+ * already stored reuse the existing embedding, so a small correction to a
+ * large document only pays for the chunks that actually changed.
+ * <p>
+ * Chunks that are near-duplicates of another file's rows are stored without
+ * an embedding, pointing at the row whose embedding they share; see
+ * {@link NearDuplicateDetector}.
+ */
+public class VectorStoreWriter implements ChunkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(
+        VectorStoreWriter.class
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EmbeddingDispatcher embeddingDispatcher;
+
+    private final ActiveEmbeddingModel activeEmbeddingModel;
+
+    private final IngestionCheckpointRepository checkpointRepository;
+
+    private final NearDuplicateDetector nearDuplicateDetector;
+
+    private final DocumentCatalogRepository documentCatalogRepository;
+
+    private final FacetIndex facetIndex;
+
+    private final SectionRepository sectionRepository;
+
+    private final SectionCache sectionCache;
+
+    private final CourseRepository courseRepository;
+
+    private final ContentFormatter contentFormatter;
+
+    private final ObjectMapper objectMapper;
+
+    public VectorStoreWriter(
+        JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate,
+        EmbeddingDispatcher embeddingDispatcher,
+        ActiveEmbeddingModel activeEmbeddingModel,
+        IngestionCheckpointRepository checkpointRepository,
+        NearDuplicateDetector nearDuplicateDetector,
+        DocumentCatalogRepository documentCatalogRepository,
+        FacetIndex facetIndex,
+        SectionRepository sectionRepository,
+        SectionCache sectionCache,
+        CourseRepository courseRepository,
+        ContentFormatter contentFormatter,
+        ObjectMapper objectMapper
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.embeddingDispatcher = embeddingDispatcher;
+        this.activeEmbeddingModel = activeEmbeddingModel;
+        this.checkpointRepository = checkpointRepository;
+        this.nearDuplicateDetector = nearDuplicateDetector;
+        this.documentCatalogRepository = documentCatalogRepository;
+        this.facetIndex = facetIndex;
+        this.sectionRepository = sectionRepository;
+        this.sectionCache = sectionCache;
+        this.courseRepository = courseRepository;
+        this.contentFormatter = contentFormatter;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean containsFile(String fileHash) {
+        return documentCatalogRepository.containsFileHash(fileHash);
+    }
+
+    @Override
+    public void write(List<Document> chunks, CourseTable courseTable) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        String fileName = (String) chunks
+            .get(0)
+            .getMetadata()
+            .get(MetadataKeys.FILE_NAME);
+
+        Map<String, String> canonicalIds = nearDuplicateDetector.findCanonicals(
+            chunks,
+            fileName
+        );
+
+        ActiveEmbeddingModel.Spec model = activeEmbeddingModel.current();
+
+        Iterator<float[]> canonicalEmbeddings = embed(
+            chunks
+                .stream()
+                .filter(c -> !canonicalIds.containsKey(c.getId()))
+                .toList(),
+            model
+        ).iterator();
+
+        List<float[]> embeddings = new ArrayList<>(chunks.size());
+
+        for (Document chunk : chunks) {
+            embeddings.add(
+                canonicalIds.containsKey(chunk.getId())
+                    ? null
+                    : canonicalEmbeddings.next()
+            );
+        }
+
+        CatalogEntry catalogEntry = CatalogEntry.of(
+            chunks.getFirst().getMetadata()
+        );
+        List<Section> sections = Section.assemble(chunks);
+
+        // A duplicate whose canonical was deleted by a concurrent write of its
+        // file has to be embedded after all. That happens outside the
+        // transaction, so the remote calls do not hold its locks, and the
+        // write is retried with the new embeddings.
+        while (true) {
+            List<Integer> orphaned = transactionTemplate.execute(status -> {
+                if (!VectorStoreBulkLoader.tryLockShared(jdbcTemplate)) {
+                    throw new RagException(
+                        "The vector store is being rebuilt; write " +
+                            fileName +
+                            " again once the rebuild is done."
+                    );
+                }
+
+                activeEmbeddingModel.verify(model);
+                nearDuplicateDetector.reassignDuplicatesOf(fileName);
+
+                List<Integer> lost = findOrphanedDuplicates(
+                    chunks,
+                    canonicalIds
+                );
+
+                if (!lost.isEmpty()) {
+                    status.setRollbackOnly();
+
+                    return lost;
+                }
+
+                int replaced = jdbcTemplate.update(
+                    "DELETE FROM vector_store WHERE file_name = ?",
+                    fileName
+                );
+
+                if (replaced > 0) {
+                    log.info(
+                        "Replacing {} rows of previous {}.",
+                        replaced,
+                        fileName
+                    );
+                }
+
+                insertChunks(chunks, embeddings);
+                documentCatalogRepository.save(catalogEntry);
+                sectionRepository.replace(fileName, sections);
+                courseRepository.replace(fileName, courseTable);
+
+                return List.of();
+            });
+
+            if (orphaned.isEmpty()) {
+                break;
+            }
+
+            embedOrphanedDuplicates(
+                chunks,
+                embeddings,
+                canonicalIds,
+                orphaned,
+                model
+            );
+        }
+
+        facetIndex.put(catalogEntry);
+        sectionCache.invalidateFile(fileName);
+    }
+
+    /**
+     * Locks the canonical rows the duplicates among {@code chunks} point at
+     * until the end of the transaction, and returns the indexes of the
+     * duplicates whose canonical no longer exists. Without an embedding of
+     * their own they would be stored with neither an embedding nor a
+     * canonical.
+     */
+    private List<Integer> findOrphanedDuplicates(
+        List<Document> chunks,
+        Map<String, String> canonicalIds
+    ) {
+        Set<String> lockedCanonicals = nearDuplicateDetector.lockCanonicals(
+            canonicalIds.values()
+        );
+        List<Integer> orphaned = new ArrayList<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            String canonicalId = canonicalIds.get(chunks.get(i).getId());
+
+            if (canonicalId != null && !lockedCanonicals.contains(canonicalId)) {
+                orphaned.add(i);
+            }
+        }
+
+        return orphaned;
+    }
+
+    /**
+     * Turns the orphaned duplicates back into ordinary chunks with their own
+     * embedding. Runs outside any transaction.
+     */
+    private void embedOrphanedDuplicates(
+        List<Document> chunks,
+        List<float[]> embeddings,
+        Map<String, String> canonicalIds,
+        List<Integer> orphaned,
+        ActiveEmbeddingModel.Spec model
+    ) {
+        log.info(
+            "{} chunks lost their canonical row to a concurrent write, embedding them.",
+            orphaned.size()
+        );
+
+        List<Document> orphanedChunks = orphaned
+            .stream()
+            .map(chunks::get)
+            .toList();
+
+        for (Document chunk : orphanedChunks) {
+            canonicalIds.remove(chunk.getId());
+            chunk.getMetadata().remove(MetadataKeys.CANONICAL_ID);
+        }
+
+        List<float[]> computed = embed(orphanedChunks, model);
+
+        for (int i = 0; i < orphaned.size(); i++) {
+            embeddings.set(orphaned.get(i), computed.get(i));
+        }
+    }
+
+    /**
+     * Tags the chunks with their near-duplicate fingerprints without looking
+     * for duplicates, for loads that replace the whole store.
+     */
+    public void fingerprint(List<Document> chunks) {
+        nearDuplicateDetector.fingerprint(chunks);
+    }
+
+    /**
+     * Returns one embedding per chunk, in order, tagging every chunk with the
+     * content hash used to look up reusable embeddings. Embeddings are
+     * reused from the vector store and from batches checkpointed by an
+     * earlier, failed attempt at the same file.
+     */
+    public List<float[]> embed(List<Document> chunks) {
+        return embed(chunks, activeEmbeddingModel.current());
+    }
+
+    private List<float[]> embed(
+        List<Document> chunks,
+        ActiveEmbeddingModel.Spec model
+    ) {
+        for (Document chunk : chunks) {
+            chunk
+                .getMetadata()
+                .put(
+                    MetadataKeys.CONTENT_HASH,
+                    ContentHashes.sha256(
+                        chunk.getFormattedContent(
+                            contentFormatter,
+                            MetadataMode.EMBED
+                        )
+                    )
+                );
+        }
+
+        Map<String, float[]> embeddings = findStoredEmbeddings(chunks);
+        embeddings.putAll(
+            checkpointRepository.findEmbeddings(
+                model.key(),
+                chunks
+                    .stream()
+                    .map(VectorStoreWriter::contentHash)
+                    .filter(h -> !embeddings.containsKey(h))
+                    .distinct()
+                    .toList()
+            )
+        );
+
+        List<Document> unembedded = chunks
+            .stream()
+            .filter(c -> !embeddings.containsKey(contentHash(c)))
+            .toList();
+
+        log.info(
+            "Reusing {} stored embeddings, embedding {} new chunks.",
+            chunks.size() - unembedded.size(),
+            unembedded.size()
+        );
+
+        if (!unembedded.isEmpty()) {
+            List<float[]> computed = embeddingDispatcher.embed(
+                unembedded,
+                model.options(),
+                (batch, batchEmbeddings) ->
+                    checkpointBatch(batch, batchEmbeddings, model)
+            );
+
+            for (int i = 0; i < unembedded.size(); i++) {
+                embeddings.put(contentHash(unembedded.get(i)), computed.get(i));
+            }
+        }
+
+        return chunks
+            .stream()
+            .map(c -> embeddings.get(contentHash(c)))
+            .toList();
+    }
+
+    private void checkpointBatch(
+        List<Document> batch,
+        List<float[]> embeddings,
+        ActiveEmbeddingModel.Spec model
+    ) {
+        String fileHash = (String) batch
+            .get(0)
+            .getMetadata()
+            .get(MetadataKeys.FILE_HASH);
+
+        if (fileHash == null) {
+            return;
+        }
+
+        Map<String, float[]> byContentHash = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            byContentHash.put(contentHash(batch.get(i)), embeddings.get(i));
+        }
+
+        checkpointRepository.saveEmbeddings(
+            fileHash,
+            model.key(),
+            byContentHash
+        );
+    }
+
+    private Map<String, float[]> findStoredEmbeddings(List<Document> chunks) {
+        String[] contentHashes = chunks
+            .stream()
+            .map(VectorStoreWriter::contentHash)
+            .distinct()
+            .toArray(String[]::new);
+
+        Map<String, float[]> embeddings = new HashMap<>();
+
+        jdbcTemplate.query(
+            """
+            SELECT DISTINCT ON (content_hash)
+                content_hash,
+                embedding::text AS embedding
+            FROM vector_store
+            WHERE content_hash = ANY (?)
+              AND embedding IS NOT NULL
+            """,
+            ps ->
+                ps.setArray(
+                    1,
+                    ps.getConnection().createArrayOf("text", contentHashes)
+                ),
+            rs -> {
+                embeddings.put(
+                    rs.getString("content_hash"),
+                    parseVector(rs.getString("embedding"))
+                );
+            }
+        );
+
+        return embeddings;
+    }
+
+    private void insertChunks(List<Document> chunks, List<float[]> embeddings) {
+        List<Object[]> rows = new ArrayList<>(chunks.size());
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Document chunk = chunks.get(i);
+            rows.add(
+                new Object[] {
+                    UUID.fromString(chunk.getId()),
+                    chunk.getText(),
+                    toJson(chunk.getMetadata()),
+                    embeddings.get(i) == null
+                        ? null
+                        : new PGvector(embeddings.get(i)),
+                }
+            );
+        }
+
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO vector_store (id, content, metadata, embedding) VALUES (?, ?, ?::jsonb, ?)",
+            rows
+        );
+    }
+
+    String toJson(Map<String, Object> metadata) {
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to serialize chunk metadata.", e);
+        }
+    }
+
+    private static float[] parseVector(String vector) {
+        try {
+            return new PGvector(vector).toArray();
+        } catch (SQLException e) {
+            throw new RagException("Failed to parse stored embedding.", e);
+        }
+    }
+
+    private static String contentHash(Document chunk) {
+        return (String) chunk.getMetadata().get(MetadataKeys.CONTENT_HASH);
+    }
+}
@@ -0,0 +1,8 @@
+package edu.gju.chatbot.exception;
+
+public class ScannerUnavailableException extends FileProcessingException {
+
+    public ScannerUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -10,6 +10,8 @@ public final class MetadataKeys {
 
     public static final String FILE_SIZE = "file_size";
 
+    public static final String FILE_HASH = "file_hash";
+
     public static final String TITLE = "title";
 
     public static final String BREADCRUMBS = "breadcrumbs";
@@ -20,6 +22,14 @@ public final class MetadataKeys {
 
     public static final String CHUNK_INDEX = "chunk_index";
 
+    public static final String CONTENT_HASH = "content_hash";
+
+    public static final String TOKEN_COUNT = "token_count";
+
+    public static final String LSH_BANDS = "lsh_bands";
+
+    public static final String CANONICAL_ID = "canonical_id";
+
     public static final String DOCUMENT_TYPE = "document_type";
 
     public static final String ACADEMIC_LEVEL = "academic_level";
@@ -37,14 +47,33 @@ public final class MetadataKeys {
         FILE_ID,
         FILE_NAME,
         FILE_SIZE,
+        FILE_HASH,
         TITLE,
         BREADCRUMBS,
         SECTION_ID,
         CHUNK_INDEX,
+        CONTENT_HASH,
+        TOKEN_COUNT,
+        LSH_BANDS,
+        CANONICAL_ID,
         DOCUMENT_TYPE,
         ACADEMIC_LEVEL,
         DEPARTMENT,
         PROGRAM,
         YEAR
     );
+
+    /**
+     * Keys describing one chunk rather than the file it was split from.
+     */
+    public static final Set<String> CHUNK_KEYS = Set.of(
+        BREADCRUMBS,
+        SECTION_ID,
+        SECTION_NAME,
+        CHUNK_INDEX,
+        CONTENT_HASH,
+        TOKEN_COUNT,
+        LSH_BANDS,
+        CANONICAL_ID
+    );
 }
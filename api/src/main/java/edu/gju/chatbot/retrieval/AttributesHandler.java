@@ -1,12 +1,8 @@
 package edu.gju.chatbot.retrieval;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import edu.gju.chatbot.exception.RagException;
+import edu.gju.chatbot.catalog.FacetIndex;
 import edu.gju.chatbot.metadata.DocumentMetadataList;
 import edu.gju.chatbot.metadata.DocumentType;
-import edu.gju.chatbot.metadata.MetadataKeys;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,14 +11,12 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
 
 @Slf4j
 @RequiredArgsConstructor
 public class AttributesHandler implements SearchDecisionHandler {
 
-    private final JdbcTemplate jdbcTemplate;
-    private final ObjectMapper objectMapper;
+    private final FacetIndex facetIndex;
 
     @Override
     public SearchDecisionContext handle(SearchDecisionContext context) {
@@ -93,28 +87,9 @@ public class AttributesHandler implements SearchDecisionHandler {
             DocumentType documentType,
             Map<String, Object> confirmedRequiredAttributes) {
 
-        Map<String, Object> metadataFilters = new HashMap<>(confirmedRequiredAttributes);
-        metadataFilters.put(MetadataKeys.DOCUMENT_TYPE, documentType.getName());
-
-        List<Map<String, Object>> metadatas = jdbcTemplate.query(
-                "SELECT metadata FROM vector_store WHERE metadata::jsonb @> ?::jsonb",
-                ps -> {
-                    try {
-                        ps.setString(1, objectMapper.writeValueAsString(metadataFilters));
-                    } catch (JsonProcessingException e) {
-                        throw new RagException("Failed to serialize metadataFilters", e);
-                    }
-                },
-                (rs, _) -> {
-                    try {
-                        return objectMapper.readValue(
-                                rs.getString("metadata"),
-                                new TypeReference<Map<String, Object>>() {
-                                });
-                    } catch (Exception e) {
-                        throw new RagException("Failed to parse metadata", e);
-                    }
-                });
+        List<Map<String, Object>> metadatas = facetIndex.findAttributes(
+                documentType.getName(),
+                confirmedRequiredAttributes);
 
         DocumentMetadataList candidates = new DocumentMetadataList(metadatas);
         log.info("Found {} candidate documents", candidates.metadatas().size());
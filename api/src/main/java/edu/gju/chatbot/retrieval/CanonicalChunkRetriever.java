@@ -0,0 +1,205 @@
+package edu.gju.chatbot.retrieval;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStoreRetriever;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+
+import edu.gju.chatbot.etl.ActiveEmbeddingModel;
+import edu.gju.chatbot.exception.RagException;
+
+/**
+ * Similarity search over a vector store holding near-duplicate chunks without
+ * embeddings of their own (see {@code NearDuplicateDetector}). Only canonical
+ * rows are in the HNSW index, so the nearest canonical rows are over-fetched,
+ * expanded to every duplicate pointing at them, and only then filtered, so
+ * that a duplicate whose own metadata matches is found even when its
+ * canonical row belongs to another program or year. Each canonical row yields
+ * at most one result, which keeps shared boilerplate from filling the top-K.
+ * <p>
+ * A selective filter can discard most of the over-fetched rows; when fewer
+ * than top-K results remain, the search is repeated over the filtered rows
+ * only, each ranked by the embedding of its canonical row.
+ * <p>
+ * Queries are embedded with the {@link ActiveEmbeddingModel}; a search that
+ * races a re-embedding swap is retried once with the new model.
+ */
+public class CanonicalChunkRetriever implements VectorStoreRetriever {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      CanonicalChunkRetriever.class);
+
+  private static final String SEARCH_SQL = """
+      WITH hits AS (
+          SELECT id, embedding <=> ? AS distance
+          FROM vector_store
+          WHERE embedding IS NOT NULL
+          ORDER BY embedding <=> ?
+          LIMIT ?
+      )
+      SELECT v.id::text AS id,
+          v.content,
+          v.metadata::text AS metadata,
+          h.id::text AS canonical_id,
+          h.distance
+      FROM hits h
+      JOIN vector_store v
+          ON v.id = h.id OR v.metadata ->> 'canonical_id' = h.id::text
+      WHERE h.distance <= ? %s
+      ORDER BY h.distance, v.id = h.id DESC
+      """;
+
+  private static final String FILTERED_SEARCH_SQL = """
+      SELECT v.id::text AS id,
+          v.content,
+          v.metadata::text AS metadata,
+          c.id::text AS canonical_id,
+          c.embedding <=> ? AS distance
+      FROM vector_store v
+      JOIN vector_store c
+          ON c.id = COALESCE((v.metadata ->> 'canonical_id')::uuid, v.id)
+      WHERE v.metadata @@ ?::jsonpath
+        AND c.embedding IS NOT NULL
+        AND c.embedding <=> ? <= ?
+      ORDER BY distance, v.id = c.id DESC
+      LIMIT ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final EmbeddingModel embeddingModel;
+
+  private final ActiveEmbeddingModel activeEmbeddingModel;
+
+  private final ObjectMapper objectMapper;
+
+  private final int overfetchFactor;
+
+  private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+
+  public CanonicalChunkRetriever(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel,
+      ActiveEmbeddingModel activeEmbeddingModel, ObjectMapper objectMapper, int overfetchFactor) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.embeddingModel = embeddingModel;
+    this.activeEmbeddingModel = activeEmbeddingModel;
+    this.objectMapper = objectMapper;
+    this.overfetchFactor = overfetchFactor;
+  }
+
+  @Override
+  public List<Document> similaritySearch(SearchRequest request) {
+    ActiveEmbeddingModel.Spec model = activeEmbeddingModel.current();
+
+    try {
+      return search(request, model);
+    } catch (DataAccessException e) {
+      ActiveEmbeddingModel.Spec current = activeEmbeddingModel.current();
+
+      if (model.equals(current)) {
+        throw e;
+      }
+
+      log.info("Embedding model switched to {} during search, retrying.", current.key());
+      return search(request, current);
+    }
+  }
+
+  private List<Document> search(SearchRequest request, ActiveEmbeddingModel.Spec model) {
+    PGvector queryEmbedding = new PGvector(
+        embeddingModel
+            .call(new EmbeddingRequest(List.of(request.getQuery()), model.options()))
+            .getResult()
+            .getOutput());
+
+    List<Object> args = new ArrayList<>(List.of(
+        queryEmbedding,
+        queryEmbedding,
+        request.getTopK() * overfetchFactor,
+        1 - request.getSimilarityThreshold()));
+
+    if (!request.hasFilterExpression()) {
+      return collapse(SEARCH_SQL.formatted(""), args, request.getTopK());
+    }
+
+    String filter = filterConverter.convertExpression(request.getFilterExpression());
+    args.add(filter);
+
+    List<Document> results = collapse(
+        SEARCH_SQL.formatted("AND v.metadata @@ ?::jsonpath"), args, request.getTopK());
+
+    if (results.size() >= request.getTopK()) {
+      return results;
+    }
+
+    log.debug("Over-fetched search found {} of {} filtered results, searching the filtered rows.",
+        results.size(), request.getTopK());
+
+    return collapse(FILTERED_SEARCH_SQL, List.of(
+        queryEmbedding,
+        filter,
+        queryEmbedding,
+        1 - request.getSimilarityThreshold(),
+        request.getTopK() * overfetchFactor), request.getTopK());
+  }
+
+  /**
+   * Runs a search returning rows ordered by distance and keeps the first row
+   * of each canonical, up to {@code topK}.
+   */
+  private List<Document> collapse(String sql, List<Object> args, int topK) {
+    Map<String, Document> byCanonical = new LinkedHashMap<>();
+
+    jdbcTemplate.query(
+        sql,
+        rs -> {
+          String canonicalId = rs.getString("canonical_id");
+
+          if (byCanonical.containsKey(canonicalId) || byCanonical.size() == topK) {
+            return;
+          }
+
+          double distance = rs.getDouble("distance");
+          Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+          metadata.put("distance", distance);
+
+          byCanonical.put(
+              canonicalId,
+              Document.builder()
+                  .id(rs.getString("id"))
+                  .text(rs.getString("content"))
+                  .metadata(metadata)
+                  .score(1 - distance)
+                  .build());
+        },
+        args.toArray());
+
+    log.debug("Collapsed search results to {} canonical chunks.", byCanonical.size());
+
+    return new ArrayList<>(byCanonical.values());
+  }
+
+  private Map<String, Object> parseMetadata(String metadata) {
+    try {
+      return objectMapper.readValue(metadata, new TypeReference<Map<String, Object>>() {
+      });
+    } catch (JsonProcessingException e) {
+      throw new RagException("Failed to parse chunk metadata.", e);
+    }
+  }
+}
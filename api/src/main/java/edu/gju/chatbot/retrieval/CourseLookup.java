@@ -0,0 +1,106 @@
+package edu.gju.chatbot.retrieval;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.gju.chatbot.course.Course;
+import edu.gju.chatbot.course.CourseRepository;
+import edu.gju.chatbot.metadata.MetadataKeys;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Looks up the courses a question names, e.g. "CS 116" or "Data Structures", in the {@code course}
+ * table. Applies only once the search decision chain has settled the program and study plan year.
+ * The rows answer a question on their own only when it asks for what the table holds (code, title,
+ * credit hours, category); for anything else, such as prerequisites or when a course can be taken,
+ * they are added to the regular search results instead of replacing them.
+ */
+@RequiredArgsConstructor
+public class CourseLookup {
+
+  private static final Logger log = LoggerFactory.getLogger(CourseLookup.class);
+
+  private static final Pattern COURSE_CODE = Pattern.compile(
+      "\\b([A-Za-z]{2,5})\\s?-?\\s?(\\d{3,4}[A-Za-z]?)\\b");
+
+  private static final Pattern ASKS_FOR_TABLE_FIELDS = Pattern.compile(
+      "credit|\\bhours?\\b|\\bcodes?\\b|\\btitles?\\b|\\bnames?\\b|categor|elective|compulsory|mandatory|obligatory",
+      Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern NEEDS_DETAILS = Pattern.compile(
+      "descri|prerequisite|pre-requisite|outcome|syllabus|content|topic|cover|objective",
+      Pattern.CASE_INSENSITIVE);
+
+  private static final int MIN_TITLE_LENGTH = 6;
+
+  private final CourseRepository courseRepository;
+
+  private final String documentType;
+
+  /**
+   * Whether the rows {@link #lookup} finds are a complete answer to the question, so the vector
+   * search can be skipped.
+   */
+  public boolean answers(UserQuery query) {
+    return ASKS_FOR_TABLE_FIELDS.matcher(query.getQuery()).find()
+        && !NEEDS_DETAILS.matcher(query.getQuery()).find();
+  }
+
+  public Optional<String> lookup(UserQuery query) {
+    if (!documentType.equalsIgnoreCase(query.getDocumentType())
+        || query.getTargetYear() == null
+        || query.getConfirmedAttributes() == null
+        || !(query.getConfirmedAttributes().get(MetadataKeys.PROGRAM) instanceof String program)) {
+      return Optional.empty();
+    }
+
+    int year = query.getTargetYear();
+    Map<String, Course> courses = new LinkedHashMap<>();
+
+    List<String> codes = extractCodes(query.getQuery());
+    if (!codes.isEmpty()) {
+      courseRepository.findByCodes(program, year, codes).forEach(c -> courses.put(c.code(), c));
+    }
+
+    courseRepository.findByTitleIn(program, year, query.getQuery(), MIN_TITLE_LENGTH)
+        .forEach(c -> courses.putIfAbsent(c.code(), c));
+
+    if (courses.isEmpty()) {
+      return Optional.empty();
+    }
+
+    log.info("Found courses in the course table: {}", courses.keySet());
+
+    return Optional.of(format(program, year, courses.values().stream().toList()));
+  }
+
+  private static List<String> extractCodes(String text) {
+    Matcher matcher = COURSE_CODE.matcher(text);
+
+    return matcher.results()
+        .map(r -> Course.normalizeCode(r.group(1) + r.group(2)))
+        .distinct()
+        .toList();
+  }
+
+  private static String format(String program, int year, List<Course> courses) {
+    String rows = courses.stream()
+        .map(c -> String.format(
+            "- %s %s: %s credit hours%s",
+            c.code(),
+            c.title(),
+            c.creditHours() != null ? c.creditHours() : "unknown",
+            c.category() != null ? " (" + c.category() + ")" : ""))
+        .collect(Collectors.joining("\n"));
+
+    return String.format("Courses in the %s study plan (%d):\n%s", program, year, rows);
+  }
+}
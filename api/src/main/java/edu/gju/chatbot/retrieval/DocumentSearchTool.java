@@ -5,6 +5,7 @@ import edu.gju.chatbot.metadata.DocumentAttribute;
 import edu.gju.chatbot.metadata.DocumentType;
 import edu.gju.chatbot.metadata.DocumentTypeRegistry;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.document.Document;
@@ -23,6 +24,8 @@ public class DocumentSearchTool implements ToolCallback {
 
   private final DocumentSearchService searchService;
 
+  private final CourseLookup courseLookup;
+
   private final Converter<String, UserQuery> toolInputConverter;
 
   @Override
@@ -56,12 +59,21 @@ public class DocumentSearchTool implements ToolCallback {
       return searchDecisionResult.getInterruptMessage().get();
     }
 
-    List<Document> retrievedDocuments =
-        this.searchService.search(searchDecisionResult.getUserQuery());
+    UserQuery resolvedQuery = searchDecisionResult.getUserQuery();
+    Optional<String> courses = this.courseLookup.lookup(resolvedQuery);
+
+    if (courses.isPresent() && this.courseLookup.answers(resolvedQuery)) {
+      return courses.get();
+    }
+
+    List<Document> retrievedDocuments = this.searchService.search(resolvedQuery);
+
+    String context =
+        retrievedDocuments.stream()
+            .map(Document::getFormattedContent)
+            .collect(Collectors.joining("\n\n"));
 
-    return retrievedDocuments.stream()
-        .map(Document::getFormattedContent)
-        .collect(Collectors.joining("\n\n"));
+    return courses.map(c -> c + "\n\n" + context).orElse(context);
   }
 
   private String buildDescription() {
@@ -0,0 +1,107 @@
+package edu.gju.chatbot.section;
+
+import edu.gju.chatbot.metadata.MetadataKeys;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.ai.document.Document;
+
+/**
+ * The full text of one section of a document, reassembled from its chunks in
+ * order with a location marker wherever the breadcrumbs change, as handed to
+ * the model as search context.
+ */
+public record Section(
+    String sectionId,
+    String fileName,
+    String content,
+    Map<String, Object> metadata,
+    int tokenCount
+) {
+    /**
+     * Reassembles the sections of the given chunks, in the order their first
+     * chunk appears. Chunks without a section are skipped.
+     */
+    public static List<Section> assemble(List<Document> chunks) {
+        Map<String, List<Document>> bySection = new LinkedHashMap<>();
+
+        for (Document chunk : chunks) {
+            Object sectionId = chunk.getMetadata().get(MetadataKeys.SECTION_ID);
+
+            if (sectionId != null) {
+                bySection
+                    .computeIfAbsent(sectionId.toString(), _ -> new ArrayList<>())
+                    .add(chunk);
+            }
+        }
+
+        return bySection
+            .entrySet()
+            .stream()
+            .map(e -> assemble(e.getKey(), e.getValue()))
+            .toList();
+    }
+
+    public Document toDocument() {
+        return new Document(content, new HashMap<>(metadata));
+    }
+
+    private static Section assemble(String sectionId, List<Document> chunks) {
+        List<Document> ordered = chunks
+            .stream()
+            .sorted(
+                Comparator.comparingInt(c ->
+                    Integer.parseInt(
+                        c.getMetadata().get(MetadataKeys.CHUNK_INDEX).toString()
+                    )
+                )
+            )
+            .toList();
+
+        StringBuilder content = new StringBuilder();
+        String lastBreadcrumb = "";
+        int tokenCount = 0;
+
+        for (Document chunk : ordered) {
+            String breadcrumb = (String) chunk
+                .getMetadata()
+                .get(MetadataKeys.BREADCRUMBS);
+
+            if (!Objects.equals(breadcrumb, lastBreadcrumb)) {
+                content
+                    .append("\n** Location: ")
+                    .append(breadcrumb)
+                    .append(" **\n");
+                lastBreadcrumb = breadcrumb;
+            }
+
+            content.append(chunk.getText()).append("\n");
+
+            if (
+                chunk.getMetadata().get(MetadataKeys.TOKEN_COUNT) instanceof
+                    Number tokens
+            ) {
+                tokenCount += tokens.intValue();
+            }
+        }
+
+        Map<String, Object> metadata = new HashMap<>(
+            ordered.getFirst().getMetadata()
+        );
+        metadata.remove(MetadataKeys.BREADCRUMBS);
+        metadata.remove(MetadataKeys.LSH_BANDS);
+        metadata.remove(MetadataKeys.CANONICAL_ID);
+
+        return new Section(
+            sectionId,
+            Objects.toString(metadata.get(MetadataKeys.FILE_NAME), null),
+            content.toString().trim(),
+            metadata,
+            tokenCount
+        );
+    }
+}
@@ -0,0 +1,144 @@
+package edu.gju.chatbot.section;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the most recently used sections in memory, bounded both by the
+ * number of sections and by their total length in characters, so popular
+ * sections are served without a database round trip.
+ * <p>
+ * Section ids are never reused: a file that is ingested again gets new
+ * sections. A stale entry can therefore never be served for a current hit,
+ * and invalidation on write only frees the memory early. Entries left over
+ * on other instances age out the same way.
+ */
+public class SectionCache {
+
+    private final int maxEntries;
+
+    private final long maxCharacters;
+
+    private final LinkedHashMap<String, Section> entries = new LinkedHashMap<>(
+        16,
+        0.75f,
+        true
+    );
+
+    private long characters;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    public SectionCache(
+        int maxEntries,
+        long maxCharacters,
+        MeterRegistry meterRegistry
+    ) {
+        this.maxEntries = maxEntries;
+        this.maxCharacters = maxCharacters;
+        this.hits = meterRegistry.counter(
+            "section.cache.requests",
+            "result",
+            "hit"
+        );
+        this.misses = meterRegistry.counter(
+            "section.cache.requests",
+            "result",
+            "miss"
+        );
+        this.evictions = meterRegistry.counter("section.cache.evictions");
+        meterRegistry.gauge("section.cache.entries", this, SectionCache::size);
+        meterRegistry.gauge(
+            "section.cache.characters",
+            this,
+            SectionCache::characters
+        );
+    }
+
+    /**
+     * Returns the cached sections among {@code sectionIds}, keyed by id.
+     */
+    public synchronized Map<String, Section> getAll(
+        Collection<String> sectionIds
+    ) {
+        Map<String, Section> found = new HashMap<>();
+
+        for (String sectionId : sectionIds) {
+            Section section = entries.get(sectionId);
+
+            if (section == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+                found.put(sectionId, section);
+            }
+        }
+
+        return found;
+    }
+
+    public synchronized void put(Section section) {
+        if (section.content().length() > maxCharacters) {
+            return;
+        }
+
+        Section previous = entries.put(section.sectionId(), section);
+
+        if (previous != null) {
+            characters -= previous.content().length();
+        }
+
+        characters += section.content().length();
+        evict();
+    }
+
+    /**
+     * Drops the sections of {@code fileName}, after its rows have been
+     * replaced or deleted.
+     */
+    public synchronized void invalidateFile(String fileName) {
+        Iterator<Section> it = entries.values().iterator();
+
+        while (it.hasNext()) {
+            Section section = it.next();
+
+            if (Objects.equals(section.fileName(), fileName)) {
+                characters -= section.content().length();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        characters = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long characters() {
+        return characters;
+    }
+
+    private void evict() {
+        Iterator<Section> eldest = entries.values().iterator();
+
+        while (entries.size() > maxEntries || characters > maxCharacters) {
+            characters -= eldest.next().content().length();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+}
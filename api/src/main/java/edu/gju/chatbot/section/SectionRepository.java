@@ -0,0 +1,183 @@
+package edu.gju.chatbot.section;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.gju.chatbot.exception.RagException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Sections reassembled once at ingest, so a search fetches one row per hit
+ * section instead of every chunk of it.
+ */
+@RequiredArgsConstructor
+@Repository
+public class SectionRepository {
+
+    private static final TypeReference<Map<String, Object>> METADATA =
+        new TypeReference<>() {};
+
+    private static final String INSERT_SQL = """
+        INSERT INTO section (section_id, file_name, content, metadata, token_count)
+        VALUES (?, ?, ?, ?::jsonb, ?)
+        ON CONFLICT (section_id) DO UPDATE SET
+            file_name = EXCLUDED.file_name,
+            content = EXCLUDED.content,
+            metadata = EXCLUDED.metadata,
+            token_count = EXCLUDED.token_count
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Replaces the sections of {@code fileName}. Writers call this in the
+     * transaction that replaces the file's chunks.
+     */
+    public void replace(String fileName, Collection<Section> sections) {
+        jdbcTemplate.update("DELETE FROM section WHERE file_name = ?", fileName);
+        insert(sections);
+    }
+
+    /**
+     * Replaces every section, for loads that replace the whole store.
+     */
+    public void replaceAll(Collection<Section> sections) {
+        jdbcTemplate.update("DELETE FROM section");
+        insert(sections);
+    }
+
+    /**
+     * Returns the sections with the given ids, in the order of the ids.
+     * Unknown ids are skipped.
+     */
+    public List<Section> findByIds(List<String> sectionIds) {
+        Map<String, Section> found = new HashMap<>();
+
+        jdbcTemplate.query(
+            """
+            SELECT section_id, file_name, content, metadata, token_count
+            FROM section
+            WHERE section_id = ANY (?)
+            """,
+            ps ->
+                ps.setArray(
+                    1,
+                    ps.getConnection().createArrayOf("text", sectionIds.toArray())
+                ),
+            rs -> {
+                found.put(
+                    rs.getString("section_id"),
+                    new Section(
+                        rs.getString("section_id"),
+                        rs.getString("file_name"),
+                        rs.getString("content"),
+                        parse(rs.getString("metadata")),
+                        rs.getInt("token_count")
+                    )
+                );
+            }
+        );
+
+        return sectionIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Assembles the sections of every file in {@code vector_store} if none
+     * are stored yet, for stores ingested before sections were materialized.
+     * Sections are assembled and inserted one file at a time.
+     */
+    public int backfill() {
+        boolean empty = Boolean.FALSE.equals(
+            jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM section)",
+                Boolean.class
+            )
+        );
+
+        if (!empty) {
+            return 0;
+        }
+
+        List<Document> fileChunks = new ArrayList<>();
+        String[] currentFile = { null };
+        int[] backfilled = { 0 };
+
+        jdbcTemplate.query(
+            """
+            SELECT content, metadata, metadata ->> 'file_name' AS file_name
+            FROM vector_store
+            WHERE section_id IS NOT NULL
+            ORDER BY metadata ->> 'file_name', chunk_index
+            """,
+            rs -> {
+                String fileName = rs.getString("file_name");
+
+                if (!Objects.equals(fileName, currentFile[0])) {
+                    backfilled[0] += flush(fileChunks);
+                    currentFile[0] = fileName;
+                }
+
+                fileChunks.add(
+                    new Document(
+                        rs.getString("content"),
+                        parse(rs.getString("metadata"))
+                    )
+                );
+            }
+        );
+
+        return backfilled[0] + flush(fileChunks);
+    }
+
+    private int flush(List<Document> fileChunks) {
+        List<Section> sections = Section.assemble(fileChunks);
+        insert(sections);
+        fileChunks.clear();
+        return sections.size();
+    }
+
+    private void insert(Collection<Section> sections) {
+        jdbcTemplate.batchUpdate(
+            INSERT_SQL,
+            sections
+                .stream()
+                .map(s ->
+                    new Object[] {
+                        s.sectionId(),
+                        s.fileName(),
+                        s.content(),
+                        toJson(s.metadata()),
+                        s.tokenCount(),
+                    }
+                )
+                .toList()
+        );
+    }
+
+    private Map<String, Object> parse(String metadata) {
+        try {
+            return objectMapper.readValue(metadata, METADATA);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to parse section metadata.", e);
+        }
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new RagException("Failed to serialize section metadata.", e);
+        }
+    }
+}
@@ -5,8 +5,107 @@ CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 CREATE TABLE IF NOT EXISTS vector_store (
 	id uuid DEFAULT uuid_generate_v4() PRIMARY KEY,
 	content TEXT,
-	metadata JSON,
+	metadata JSONB,
 	embedding vector(1536)
 );
 
-CREATE INDEX ON vector_store USING HNSW (embedding vector_cosine_ops);
+-- Generated columns and indexes on vector_store are added by VectorStoreSchemaMigration.
+
+CREATE TABLE IF NOT EXISTS document (
+	file_name TEXT PRIMARY KEY,
+	file_id TEXT,
+	file_hash TEXT,
+	document_type TEXT,
+	year INTEGER,
+	attributes JSONB NOT NULL DEFAULT '{}'::jsonb,
+	ingested_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS document_type_idx ON document (document_type, year);
+
+CREATE INDEX IF NOT EXISTS document_file_hash_idx ON document (file_hash);
+
+CREATE TABLE IF NOT EXISTS section (
+	section_id TEXT PRIMARY KEY,
+	file_name TEXT,
+	content TEXT NOT NULL,
+	metadata JSONB NOT NULL,
+	token_count INTEGER NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS section_file_name_idx ON section (file_name);
+
+CREATE TABLE IF NOT EXISTS ingestion_job (
+	id uuid DEFAULT uuid_generate_v4() PRIMARY KEY,
+	file_name TEXT NOT NULL,
+	file_oid OID,
+	status TEXT NOT NULL DEFAULT 'QUEUED',
+	stages JSONB NOT NULL DEFAULT '{}'::jsonb,
+	error TEXT,
+	attempts INTEGER NOT NULL DEFAULT 0,
+	locked_by TEXT,
+	heartbeat_at TIMESTAMPTZ,
+	created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	started_at TIMESTAMPTZ,
+	finished_at TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS ingestion_job_status_idx ON ingestion_job (status, created_at);
+
+CREATE TABLE IF NOT EXISTS ocr_cache (
+	content_hash TEXT PRIMARY KEY,
+	content TEXT NOT NULL,
+	size_bytes BIGINT NOT NULL,
+	created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	last_accessed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS ingestion_checkpoint (
+	file_hash TEXT NOT NULL,
+	stage TEXT NOT NULL,
+	payload JSONB NOT NULL,
+	created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	PRIMARY KEY (file_hash, stage)
+);
+
+CREATE TABLE IF NOT EXISTS embedding_checkpoint (
+	file_hash TEXT NOT NULL,
+	model TEXT NOT NULL,
+	content_hash TEXT NOT NULL,
+	embedding vector NOT NULL,
+	created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	PRIMARY KEY (file_hash, model, content_hash)
+);
+
+CREATE TABLE IF NOT EXISTS embedding_model (
+	id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+	model TEXT NOT NULL,
+	dimensions INTEGER NOT NULL,
+	activated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS re_embedding_job (
+	id uuid DEFAULT uuid_generate_v4() PRIMARY KEY,
+	model TEXT NOT NULL,
+	dimensions INTEGER NOT NULL,
+	status TEXT NOT NULL DEFAULT 'COPYING',
+	last_copied_id uuid,
+	rows_copied BIGINT NOT NULL DEFAULT 0,
+	error TEXT,
+	created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+	finished_at TIMESTAMPTZ
+);
+
+CREATE TABLE IF NOT EXISTS course (
+	program TEXT NOT NULL,
+	year INTEGER NOT NULL,
+	code TEXT NOT NULL,
+	title TEXT NOT NULL,
+	credit_hours INTEGER,
+	category TEXT,
+	file_name TEXT NOT NULL,
+	PRIMARY KEY (program, year, code)
+);
+
+CREATE INDEX IF NOT EXISTS course_file_name_idx ON course (file_name);
@@ -0,0 +1,71 @@
+package edu.gju.chatbot.catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class FacetIndexTest {
+
+    @Test
+    public void testFindsDocumentsCarryingEveryFilteredValue() {
+        FacetIndex index = new FacetIndex(null);
+        index.replaceAll(
+            List.of(
+                entry("cs-2023.pdf", "CS", 2023),
+                entry("cs-2024.pdf", "CS", 2024),
+                entry("ee-2024.pdf", "EE", 2024)
+            )
+        );
+
+        assertEquals(
+            List.of("cs-2023.pdf", "cs-2024.pdf"),
+            fileNames(index.findAttributes("study_plan", Map.of("program", "CS")))
+        );
+        assertEquals(
+            List.of("cs-2024.pdf"),
+            fileNames(
+                index.findAttributes(
+                    "study_plan",
+                    Map.of("program", "CS", "year", 2024L)
+                )
+            )
+        );
+        assertTrue(
+            index.findAttributes("study_plan", Map.of("program", "ME")).isEmpty()
+        );
+        assertTrue(index.findAttributes("calendar", Map.of()).isEmpty());
+    }
+
+    @Test
+    public void testPutReplacesTheFilesPreviousEntry() {
+        FacetIndex index = new FacetIndex(null);
+        index.replaceAll(List.of(entry("plan.pdf", "CS", 2023)));
+
+        index.put(entry("plan.pdf", "CS", 2024));
+
+        List<Map<String, Object>> documents = index.findAttributes(
+            "study_plan",
+            Map.of()
+        );
+        assertEquals(1, documents.size());
+        assertEquals(2024, documents.getFirst().get("year"));
+    }
+
+    private static CatalogEntry entry(String fileName, String program, int year) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("file_name", fileName);
+        metadata.put("document_type", "study_plan");
+        metadata.put("program", program);
+        metadata.put("year", year);
+        metadata.put("section_id", "ignored");
+
+        return CatalogEntry.of(metadata);
+    }
+
+    private static List<Object> fileNames(List<Map<String, Object>> documents) {
+        return documents.stream().map(d -> d.get("file_name")).toList();
+    }
+}
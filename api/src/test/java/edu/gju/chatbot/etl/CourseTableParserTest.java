@@ -0,0 +1,67 @@
+package edu.gju.chatbot.etl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.gju.chatbot.course.Course;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CourseTableParserTest {
+
+    @Test
+    public void testParsesCourseTablesUnderTheirSection() {
+        List<Course> courses = CourseTableParser.parse(
+            """
+            # Study Plan
+            ## University Requirements
+            | Course Code | Course Title | Lecture Hours | Credit Hours |
+            |---|---|---|---|
+            | ARB 099 | Arabic Language | 3 | 0 |
+            | GERL 101B | German I | 9 | 3 |
+            | Total | | | 3 |
+
+            ## Program Requirements
+            | Course No. | Course Name | Cr. Hrs | Type |
+            |:---|:---|:---:|---|
+            | CS116 | Computing Fundamentals | 3 | Compulsory |
+            | cs-222 | Data Structures | 3 | Compulsory |
+
+            ## Study Plan Guide
+            | Course | Credit Hours |
+            | --- | --- |
+            | CS 116 Computing Fundamentals | 3 |
+            | MATH 101 - Calculus I | 3 |
+            """
+        );
+
+        assertEquals(
+            List.of("ARB099", "GERL101B", "CS116", "CS222", "MATH101"),
+            courses.stream().map(Course::code).toList()
+        );
+        assertEquals(
+            new Course("ARB099", "Arabic Language", 0, "University Requirements"),
+            courses.get(0)
+        );
+        assertEquals(
+            new Course("CS116", "Computing Fundamentals", 3, "Compulsory"),
+            courses.get(2)
+        );
+        assertEquals(
+            new Course("MATH101", "Calculus I", 3, "Study Plan Guide"),
+            courses.get(4)
+        );
+    }
+
+    @Test
+    public void testIgnoresTablesWithoutCourses() {
+        assertTrue(
+            CourseTableParser.parse(
+                """
+                | Semester | Start | End |
+                |---|---|---|
+                | First | 2024-09-01 | 2025-01-15 |
+                """
+            ).isEmpty()
+        );
+    }
+}
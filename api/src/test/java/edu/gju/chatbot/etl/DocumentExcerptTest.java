@@ -0,0 +1,122 @@
+package edu.gju.chatbot.etl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+public class DocumentExcerptTest {
+
+    private static final String OUTLINE_MARKER =
+        "[OUTLINE OF THE REST OF THE DOCUMENT]";
+
+    private static final String YEAR_MARKER = "[LINES MENTIONING A YEAR]";
+
+    private static final String YEAR_LINE =
+        "This study plan applies from the 2023/2024 academic year.";
+
+    private final TokenCountEstimator tokenCountEstimator =
+        new JTokkitTokenCountEstimator();
+
+    @Test
+    public void testShortDocumentIsReturnedWhole() {
+        String markdown = "# Study Plan\nA short document.\n";
+
+        assertEquals(
+            markdown,
+            DocumentExcerpt.of(markdown, tokenCountEstimator, 300)
+        );
+    }
+
+    @Test
+    public void testExcerptStaysWithinBudgetAndKeepsHeadersAndYearLines() {
+        int tokenBudget = 300;
+        String excerpt = DocumentExcerpt.of(
+            longDocument(),
+            tokenCountEstimator,
+            tokenBudget
+        );
+
+        assertTrue(excerpt.startsWith(filler(0)));
+        assertTrue(excerpt.contains(OUTLINE_MARKER));
+        assertTrue(excerpt.contains(YEAR_MARKER));
+
+        String beginning = excerpt.substring(0, excerpt.indexOf(OUTLINE_MARKER));
+        String outline = excerpt.substring(
+            excerpt.indexOf(OUTLINE_MARKER),
+            excerpt.indexOf(YEAR_MARKER)
+        );
+
+        assertTrue(budgeted(beginning) <= tokenBudget * 0.6);
+        for (int section = 1; section <= 10; section++) {
+            assertTrue(outline.contains("## Section " + section + "\n"));
+        }
+        assertFalse(outline.contains(filler(150)));
+
+        assertTrue(excerpt.endsWith(YEAR_LINE + "\n"));
+        assertEquals(
+            excerpt.indexOf(YEAR_LINE),
+            excerpt.lastIndexOf(YEAR_LINE),
+            "repeated year lines are kept once"
+        );
+        assertTrue(budgeted(excerpt) <= tokenBudget);
+    }
+
+    /**
+     * Two hundred filler lines with a header every twenty lines and the same
+     * year line twice near the end.
+     */
+    private static String longDocument() {
+        StringBuilder markdown = new StringBuilder();
+
+        for (int i = 0; i < 200; i++) {
+            if (i > 0 && i % 20 == 0) {
+                markdown.append("## Section ").append(i / 20).append('\n');
+            }
+
+            if (i == 150 || i == 180) {
+                markdown.append(YEAR_LINE).append('\n');
+            }
+
+            markdown.append(filler(i)).append('\n');
+        }
+
+        markdown.append("## Section 10\n");
+
+        return markdown.toString();
+    }
+
+    private static String filler(int line) {
+        return (
+            "Line " +
+            line +
+            " describes the program in general terms without any dates."
+        );
+    }
+
+    /**
+     * Counts the excerpt's content lines the way the excerpt budgets them:
+     * each line's tokens plus one for its line break. Section markers and
+     * the blank lines before them are not part of the budget.
+     */
+    private int budgeted(String excerpt) {
+        List<String> lines = excerpt.lines().toList();
+        int tokens = 0;
+
+        for (String line : lines) {
+            if (
+                line.isEmpty() ||
+                line.equals(OUTLINE_MARKER) ||
+                line.equals(YEAR_MARKER)
+            ) {
+                continue;
+            }
+
+            tokens += tokenCountEstimator.estimate(line) + 1;
+        }
+
+        return tokens;
+    }
+}
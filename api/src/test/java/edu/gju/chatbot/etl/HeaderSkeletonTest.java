@@ -0,0 +1,88 @@
+package edu.gju.chatbot.etl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class HeaderSkeletonTest {
+
+    @Test
+    public void testSkeletonKeepsHeadersWithSnippets() {
+        HeaderSkeleton skeleton = HeaderSkeleton.of(
+            """
+            Preamble without a header.
+            # Introduction
+            This is the intro text.
+
+            ## Background
+            Some background info that is longer than the snippet.
+            ### Details
+            """,
+            20
+        );
+
+        List<HeaderSkeleton.Header> headers = skeleton.getHeaders();
+
+        assertEquals(3, headers.size());
+        assertEquals("<header-id-1>", headers.get(0).id());
+        assertEquals("This is the intro te", headers.get(0).snippet());
+        assertEquals("## Background", headers.get(1).line());
+        assertEquals("Some background info", headers.get(1).snippet());
+        assertEquals("", headers.get(2).snippet());
+    }
+
+    @Test
+    public void testBuilderMatchesSkeletonOfJoinedParts() {
+        List<String> parts = List.of(
+            "# Introduction\nThis is the",
+            "intro text.\n## Background",
+            "Some background info.\n### Details"
+        );
+
+        HeaderSkeleton.Builder builder = new HeaderSkeleton.Builder(20);
+        builder.append(parts.get(0));
+        builder.append(parts.get(1));
+
+        assertEquals(1, builder.completeHeaders().size());
+        assertEquals(
+            "This is the intro te",
+            builder.completeHeaders().get(0).snippet()
+        );
+
+        builder.append(parts.get(2));
+
+        assertEquals(
+            HeaderSkeleton.of(String.join("\n\n", parts), 20).getHeaders(),
+            builder.build().getHeaders()
+        );
+    }
+
+    @Test
+    public void testStitchAlignsShiftedWindows() {
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            markdown.append("## Header ").append(i).append('\n');
+        }
+
+        HeaderSkeleton skeleton = HeaderSkeleton.of(markdown.toString(), 0);
+        List<List<HeaderSkeleton.Header>> windows = skeleton.windows(3, 1);
+
+        assertEquals(2, windows.size());
+
+        Map<String, Integer> levels = HeaderSkeleton.stitch(
+            windows,
+            List.of(
+                Map.of("<header-id-1>", 1, "<header-id-2>", 2, "<header-id-3>", 3),
+                // The second window only sees header 3 onwards and levels it
+                // as a top-level header.
+                Map.of("<header-id-3>", 1, "<header-id-4>", 2, "<header-id-5>", -1)
+            )
+        );
+
+        assertEquals(3, levels.get("<header-id-3>"));
+        assertEquals(4, levels.get("<header-id-4>"));
+        assertEquals(-1, levels.get("<header-id-5>"));
+    }
+}
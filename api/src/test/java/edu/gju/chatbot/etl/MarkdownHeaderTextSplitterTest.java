@@ -2,12 +2,13 @@ package edu.gju.chatbot.etl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.knuddels.jtokkit.api.EncodingType;
+import edu.gju.chatbot.metadata.MetadataKeys;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 
 public class MarkdownHeaderTextSplitterTest {
 
@@ -16,7 +17,7 @@ public class MarkdownHeaderTextSplitterTest {
     @BeforeEach
     void setUp() {
         textSplitter = new MarkdownTextSplitter(
-            new TokenTextSplitter(128, 64, 10, 5000, true)
+            new TokenChunker(EncodingType.CL100K_BASE, 128, 64, 10, 5000)
         );
     }
 
@@ -47,6 +48,15 @@ public class MarkdownHeaderTextSplitterTest {
         var second = chunks.get(1);
         var third = chunks.get(2);
         var fourth = chunks.get(3);
+
+        assertEquals("This is the intro text.", first.getText());
+        assertEquals(
+            "Introduction > Background > Details",
+            third.getMetadata().get(MetadataKeys.BREADCRUMBS)
+        );
+        assertTrue(
+            ((Number) fourth.getMetadata().get(MetadataKeys.TOKEN_COUNT)).intValue() > 0
+        );
         //
         // // formatted breadcrumbs are stored under FORMATTED_BREADCRUMBS
         // assertEquals("Introduction", (String)
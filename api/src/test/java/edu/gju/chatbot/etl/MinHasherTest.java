@@ -0,0 +1,70 @@
+package edu.gju.chatbot.etl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class MinHasherTest {
+
+    private static final String REQUIREMENTS = """
+        Students must complete the university requirements before graduation.
+        These include Arabic Language, English Language, Military Science,
+        National Education and Computer Skills. Students who do not pass the
+        English placement test must register for the remedial English course
+        in their first semester, and students who do not pass the computer
+        skills placement test must register for the remedial computer course.
+        Remedial courses do not count towards the credit hours of the study
+        plan and are graded as pass or fail. University electives are chosen
+        from the humanities, social sciences and sciences groups, with at
+        least one course from each group.
+        """;
+
+    private final MinHasher minHasher = new MinHasher(32, 4, 5);
+
+    @Test
+    public void testNearDuplicatesShareMostBands() {
+        String copy = REQUIREMENTS
+            .replace("first semester", "first year")
+            .toUpperCase();
+
+        int shared = sharedBands(
+            minHasher.bandKeys(REQUIREMENTS),
+            minHasher.bandKeys(copy)
+        );
+
+        assertTrue(shared >= minHasher.minSharedBands(0.8));
+        assertTrue(minHasher.estimateSimilarity(shared) >= 0.8);
+    }
+
+    @Test
+    public void testUnrelatedTextsShareNoBands() {
+        String other = """
+            The Department of Computer Engineering offers courses in embedded
+            systems, digital logic, signals and systems, computer networks and
+            computer architecture, with laboratories attached to each.
+            """;
+
+        assertEquals(
+            0,
+            sharedBands(
+                minHasher.bandKeys(REQUIREMENTS),
+                minHasher.bandKeys(other)
+            )
+        );
+    }
+
+    @Test
+    public void testTextShorterThanAShingleHasNoBands() {
+        assertTrue(minHasher.bandKeys("Credit hours: 3").isEmpty());
+        assertEquals(32, minHasher.bandKeys(REQUIREMENTS).size());
+    }
+
+    private static int sharedBands(List<String> a, List<String> b) {
+        Set<String> shared = new HashSet<>(a);
+        shared.retainAll(b);
+        return shared.size();
+    }
+}
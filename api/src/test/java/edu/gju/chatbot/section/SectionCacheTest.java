@@ -0,0 +1,54 @@
+package edu.gju.chatbot.section;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class SectionCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsedSectionsOverTheCharacterBound() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SectionCache cache = new SectionCache(10, 10, meterRegistry);
+
+        cache.put(section("a", "one.pdf", "aaaa"));
+        cache.put(section("b", "one.pdf", "bbbb"));
+        cache.getAll(List.of("a"));
+        cache.put(section("c", "two.pdf", "cccc"));
+
+        assertEquals(
+            Set.of("a", "c"),
+            cache.getAll(List.of("a", "b", "c")).keySet()
+        );
+        assertEquals(8, cache.characters());
+        assertEquals(1, meterRegistry.counter("section.cache.evictions").count());
+        assertEquals(
+            3,
+            meterRegistry.counter("section.cache.requests", "result", "hit").count()
+        );
+        assertEquals(
+            1,
+            meterRegistry.counter("section.cache.requests", "result", "miss").count()
+        );
+    }
+
+    @Test
+    public void testInvalidatesTheSectionsOfAFile() {
+        SectionCache cache = new SectionCache(10, 100, new SimpleMeterRegistry());
+
+        cache.put(section("a", "one.pdf", "aaaa"));
+        cache.put(section("b", "two.pdf", "bbbb"));
+        cache.invalidateFile("one.pdf");
+
+        assertEquals(Set.of("b"), cache.getAll(List.of("a", "b")).keySet());
+        assertEquals(4, cache.characters());
+    }
+
+    private static Section section(String id, String fileName, String content) {
+        return new Section(id, fileName, content, Map.of(), 1);
+    }
+}
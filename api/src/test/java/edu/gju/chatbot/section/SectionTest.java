@@ -0,0 +1,61 @@
+package edu.gju.chatbot.section;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+public class SectionTest {
+
+    @Test
+    public void testAssemblesSectionsInChunkOrderWithLocationMarkers() {
+        List<Section> sections = Section.assemble(
+            List.of(
+                chunk("intro", 0, "Plan > Intro", "Welcome.", 2),
+                chunk("courses", 3, "Plan > Courses > Electives", "CS 330", 3),
+                chunk("courses", 1, "Plan > Courses", "CS 116", 3),
+                chunk("courses", 2, "Plan > Courses", "CS 222", 3)
+            )
+        );
+
+        assertEquals(
+            List.of("intro", "courses"),
+            sections.stream().map(Section::sectionId).toList()
+        );
+
+        Section courses = sections.get(1);
+        assertEquals(
+            """
+            ** Location: Plan > Courses **
+            CS 116
+            CS 222
+
+            ** Location: Plan > Courses > Electives **
+            CS 330""",
+            courses.content()
+        );
+        assertEquals(9, courses.tokenCount());
+        assertEquals("plan.pdf", courses.fileName());
+        assertFalse(courses.metadata().containsKey("breadcrumbs"));
+    }
+
+    private static Document chunk(
+        String sectionId,
+        int chunkIndex,
+        String breadcrumbs,
+        String text,
+        int tokenCount
+    ) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("file_name", "plan.pdf");
+        metadata.put("section_id", sectionId);
+        metadata.put("chunk_index", chunkIndex);
+        metadata.put("breadcrumbs", breadcrumbs);
+        metadata.put("token_count", tokenCount);
+
+        return new Document(text, metadata);
+    }
+}
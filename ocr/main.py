@@ -1,9 +1,13 @@
+import json
 from typing import Annotated
 
 from fastapi import FastAPI, File, UploadFile
+from fastapi.responses import StreamingResponse
 
 from io import BytesIO
 
+import pypdfium2
+
 from docling.document_converter import DocumentConverter, PdfFormatOption
 from docling.datamodel.base_models import InputFormat, DocumentStream
 from docling.datamodel.pipeline_options import ThreadedPdfPipelineOptions
@@ -42,3 +46,33 @@ async def convert_file(file: Annotated[UploadFile, File()]):
     markdown = document.export_to_markdown()
 
     return {"content": markdown}
+
+
+@app.post("/scan/stream/")
+async def stream_file(
+    file: Annotated[UploadFile, File()],
+    pages_per_part: int = 5,
+):
+    """Converts the document a few pages at a time and emits each part's
+    markdown as one NDJSON line, so the caller can start on early pages
+    while later ones are still being converted."""
+    file_name = file.filename or "uploaded_file.pdf"
+    file_bytes = await file.read()
+    page_count = len(pypdfium2.PdfDocument(file_bytes))
+
+    def parts():
+        for first_page in range(1, page_count + 1, pages_per_part):
+            last_page = min(first_page + pages_per_part - 1, page_count)
+            source = DocumentStream(name=file_name, stream=BytesIO(file_bytes))
+
+            document = converter.convert(
+                source, page_range=(first_page, last_page)
+            ).document
+
+            yield json.dumps({
+                "first_page": first_page,
+                "last_page": last_page,
+                "content": document.export_to_markdown(),
+            }) + "\n"
+
+    return StreamingResponse(parts(), media_type="application/x-ndjson")